@@ -0,0 +1,351 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Genera un juego de datos sintético, del tamaño que se pida, con el mismo
+ * formato que los archivos que escribe el gimnasio: registrosSocios.txt,
+ * registrosEmpleados.txt, registrosClase.txt, registros.txt (historial
+ * financiero) y gimnasio.txt (cabecera con el saldo). Sirve para las
+ * mediciones de rendimiento y para pruebas de carga.
+ *
+ * Es determinista: con la misma semilla, las mismas cantidades y la misma
+ * fecha de referencia genera exactamente los mismos archivos. Las líneas se
+ * escriben a medida que se generan, así que millones de registros no ocupan
+ * memoria.
+ *
+ * Los socios tienen DNIs consecutivos desde 20.000.000 y vencimientos
+ * repartidos alrededor de la fecha de referencia (unos vencidos y otros
+ * vigentes). Los movimientos se reparten en orden cronológico a lo largo de
+ * los años indicados que terminan en la fecha de referencia: en su mayoría
+ * cobros de cuotas (HABER) y algunos pagos de sueldos (DEBE).
+ *
+ * Uso: java -cp out GeneradorDatos [opciones], por ejemplo
+ *
+ *   java -cp out GeneradorDatos --socios=1000000 --movimientos=10000000 --anios=5 --directorio=/tmp/datos
+ *
+ * Opciones: --socios, --empleados, --movimientos, --anios, --semilla,
+ * --hasta=dd/MM/yyyy, --directorio (por defecto "datos") y --sobrescribir
+ * (sin ella no se escribe en un directorio que ya tiene archivos de datos).
+ */
+public class GeneradorDatos {
+
+    public static final int PRIMER_DNI_SOCIO = 20_000_000;
+    public static final int PRIMER_DNI_EMPLEADO = 10_000;
+
+    private static final String[] NOMBRES = { "Juan", "Maria", "Pedro", "Lucia", "Martin", "Sofia", "Diego",
+            "Valentina", "Santiago", "Camila", "Mateo", "Julieta", "Tomas", "Florencia", "Nicolas", "Agustina",
+            "Facundo", "Micaela", "Lucas", "Carolina" };
+    private static final String[] APELLIDOS = { "Garcia", "Rodriguez", "Martinez", "Lopez", "Gonzalez", "Perez",
+            "Fernandez", "Sanchez", "Romero", "Diaz", "Alvarez", "Torres", "Ruiz", "Ramirez", "Flores", "Benitez",
+            "Acosta", "Medina", "Herrera", "Suarez" };
+    private static final String[] MEMBRESIAS = { "Estándar", "Premium", "Platinum", "Básico" };
+    private static final String[] SECTORES = { "Vestuarios", "Sala de máquinas", "Recepción", "Salones" };
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // Uno de cada DIVISOR_DEBE movimientos es un pago de sueldo
+    private static final int DIVISOR_DEBE = 10;
+
+    private int socios = 1_000;
+    private int empleados = 20;
+    private long movimientos = 10_000;
+    private int anios = 1;
+    private long semilla = 1;
+    private LocalDate hasta = LocalDate.of(2026, 1, 1);
+
+    /** Resumen de lo generado. */
+    public static class Resultado {
+        private int socios;
+        private int empleados;
+        private int clases;
+        private long movimientos;
+        private long saldo;
+        private long milisegundos;
+
+        public int getSocios() {
+            return socios;
+        }
+
+        public int getEmpleados() {
+            return empleados;
+        }
+
+        public int getClases() {
+            return clases;
+        }
+
+        public long getMovimientos() {
+            return movimientos;
+        }
+
+        /** Saldo final de la cuenta del gimnasio en centavos. */
+        public long getSaldo() {
+            return saldo;
+        }
+
+        public long getMilisegundos() {
+            return milisegundos;
+        }
+
+        @Override
+        public String toString() {
+            return "Resultado{" +
+                    "socios=" + socios +
+                    ", empleados=" + empleados +
+                    ", clases=" + clases +
+                    ", movimientos=" + movimientos +
+                    ", saldo=" + Dinero.aTexto(saldo) +
+                    ", ms=" + milisegundos +
+                    '}';
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        GeneradorDatos generador = new GeneradorDatos();
+        String directorio = "datos";
+        boolean sobrescribir = false;
+        for (String arg : args) {
+            String[] partes = arg.split("=", 2);
+            String valor = (partes.length > 1) ? partes[1] : "";
+            switch (partes[0]) {
+                case "--socios":
+                    generador.setSocios(Integer.parseInt(valor));
+                    break;
+                case "--empleados":
+                    generador.setEmpleados(Integer.parseInt(valor));
+                    break;
+                case "--movimientos":
+                    generador.setMovimientos(Long.parseLong(valor));
+                    break;
+                case "--anios":
+                    generador.setAnios(Integer.parseInt(valor));
+                    break;
+                case "--semilla":
+                    generador.setSemilla(Long.parseLong(valor));
+                    break;
+                case "--hasta":
+                    generador.setHasta(LocalDate.parse(valor, FORMATO_FECHA));
+                    break;
+                case "--directorio":
+                    directorio = valor;
+                    break;
+                case "--sobrescribir":
+                    sobrescribir = true;
+                    break;
+                default:
+                    System.err.println("Opción desconocida: " + arg);
+                    System.exit(1);
+            }
+        }
+        File destino = new File(directorio);
+        if (!sobrescribir && new File(destino, "registrosSocios.txt").exists()) {
+            System.err.println(destino.getAbsolutePath() + " ya tiene datos; use --sobrescribir para reemplazarlos.");
+            System.exit(1);
+        }
+        System.out.println(generador.generar(destino));
+    }
+
+    /**
+     * Escribe los archivos en el directorio (lo crea si no existe) y borra la
+     * instantánea y los deltas que hubiera, para que el gimnasio cargue lo
+     * generado.
+     */
+    public Resultado generar(File directorio) throws IOException {
+        long inicio = System.nanoTime();
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IOException("No se pudo crear " + directorio);
+        }
+        for (String sobrante : new String[] { "gimnasio.snap", "registrosSocios.delta", "registrosEmpleados.delta",
+                "registrosClase.delta", "registrosInscripciones.txt", "registrosInscripciones.delta" }) {
+            new File(directorio, sobrante).delete();
+        }
+        Resultado resultado = new Resultado();
+        int entrenadores = Math.max(1, empleados - empleados / 5);
+        try (Writer w = abrir(new File(directorio, "registrosEmpleados.txt"))) {
+            for (int i = 0; i < empleados; i++) {
+                StringBuilder sb = new StringBuilder(96);
+                if (i < entrenadores) {
+                    sb.append("Entrenador;");
+                } else {
+                    sb.append("Limpieza;");
+                }
+                sb.append(PRIMER_DNI_EMPLEADO + i).append(';').append(nombre(i)).append(';').append(apellido(i))
+                        .append(';').append(i % 2 == 0 ? "F" : "M").append(';')
+                        .append(Dinero.aTexto(sueldo(i, entrenadores)));
+                if (i < entrenadores) {
+                    sb.append(';').append(Gimnasio.TIPOS_CLASE[i % Gimnasio.TIPOS_CLASE.length]);
+                } else {
+                    sb.append(';').append(Gimnasio.TURNOS[i % Gimnasio.TURNOS.length]).append(';')
+                            .append(SECTORES[i % SECTORES.length]);
+                }
+                w.write(sb.append('\n').toString());
+            }
+        }
+        resultado.empleados = empleados;
+
+        // Una clase por casilla de la grilla (salvo los domingos) mientras haya entrenadores
+        try (Writer w = abrir(new File(directorio, "registrosClase.txt"))) {
+            int n = 0;
+            for (int d = 0; d < Gimnasio.DIAS_SEMANA.length && empleados > 0; d++) {
+                if ("Domingo".equalsIgnoreCase(Gimnasio.DIAS_SEMANA[d])) {
+                    continue;
+                }
+                for (int t = 0; t < Gimnasio.TURNOS.length; t++) {
+                    int entrenador = n % entrenadores;
+                    w.write(Gimnasio.TIPOS_CLASE[entrenador % Gimnasio.TIPOS_CLASE.length] + ";"
+                            + Gimnasio.DIAS_SEMANA[d] + " - " + Gimnasio.TURNOS[t] + ";" + (15 + n % 4 * 5) + ";"
+                            + (PRIMER_DNI_EMPLEADO + entrenador) + "\n");
+                    n++;
+                }
+            }
+            resultado.clases = n;
+        }
+
+        CatalogoPlanes catalogo = CatalogoPlanes.porDefecto();
+        int[] planes = catalogo.getMeses();
+        LocalDate desde = hasta.minusYears(anios);
+        int dias = (int) (hasta.toEpochDay() - desde.toEpochDay());
+        try (Writer w = abrir(new File(directorio, "registrosSocios.txt"))) {
+            Random azar = new Random(semilla * 31 + 2);
+            for (int i = 0; i < socios; i++) {
+                int dni = PRIMER_DNI_SOCIO + i;
+                LocalDate inscripcion = desde.plusDays(azar.nextInt(dias));
+                // Vencimientos entre seis meses antes y un año después de la referencia
+                LocalDate vencimiento = hasta.plusDays(azar.nextInt(545) - 180);
+                StringBuilder sb = new StringBuilder(96);
+                sb.append(dni).append(';').append(nombre(i)).append(';').append(apellido(i)).append(';')
+                        .append(MEMBRESIAS[i % MEMBRESIAS.length]).append(';').append(planes[i % planes.length])
+                        .append(';').append("000").append(dni).append(';').append(FORMATO_FECHA.format(inscripcion))
+                        .append(';').append(FORMATO_FECHA.format(vencimiento)).append('\n');
+                w.write(sb.toString());
+            }
+        }
+        resultado.socios = socios;
+
+        long saldo = 0;
+        try (Writer w = abrir(new File(directorio, "registros.txt"))) {
+            Random azar = new Random(semilla * 31 + 3);
+            long inicioSegundos = desde.toEpochDay() * 86_400L;
+            long totalSegundos = dias * 86_400L;
+            // Cada movimiento cae en su tramo del período, en un segundo al azar del tramo
+            int tramo = (int) Math.min(Integer.MAX_VALUE, Math.max(1, totalSegundos / Math.max(1, movimientos)));
+            long diaActual = Long.MIN_VALUE;
+            String textoDia = null;
+            StringBuilder sb = new StringBuilder(160);
+            for (long i = 0; i < movimientos; i++) {
+                long segundo = inicioSegundos + totalSegundos * i / movimientos + azar.nextInt(tramo);
+                long dia = Math.floorDiv(segundo, 86_400L);
+                if (dia != diaActual) {
+                    diaActual = dia;
+                    textoDia = FORMATO_FECHA.format(LocalDate.ofEpochDay(dia));
+                }
+                int segundoDelDia = (int) Math.floorMod(segundo, 86_400L);
+                sb.setLength(0);
+                sb.append(i + 1).append('|').append(textoDia).append(' ');
+                dosDigitos(sb, segundoDelDia / 3600).append(':');
+                dosDigitos(sb, segundoDelDia / 60 % 60).append(':');
+                dosDigitos(sb, segundoDelDia % 60).append('|');
+                if (empleados > 0 && i % DIVISOR_DEBE == DIVISOR_DEBE - 1) {
+                    int e = azar.nextInt(empleados);
+                    boolean esEntrenador = e < entrenadores;
+                    long monto = sueldo(e, entrenadores);
+                    saldo -= monto;
+                    sb.append("DEBE|Pago de sueldo a ").append(nombre(e)).append(' ').append(apellido(e))
+                            .append(" (DNI:").append(PRIMER_DNI_EMPLEADO + e).append(")|").append(Dinero.aTexto(monto))
+                            .append("|EMPLEADO;").append(esEntrenador ? "Entrenador" : "Limpieza").append(';')
+                            .append(PRIMER_DNI_EMPLEADO + e).append(';').append(nombre(e)).append(';')
+                            .append(apellido(e)).append(';').append(e % 2 == 0 ? "F" : "M").append(';')
+                            .append(Dinero.aTexto(monto));
+                    if (esEntrenador) {
+                        sb.append(';').append(Gimnasio.TIPOS_CLASE[e % Gimnasio.TIPOS_CLASE.length]);
+                    } else {
+                        sb.append(';').append(Gimnasio.TURNOS[e % Gimnasio.TURNOS.length]).append(';')
+                                .append(SECTORES[e % SECTORES.length]);
+                    }
+                } else if (socios > 0) {
+                    int s = azar.nextInt(socios);
+                    int meses = planes[s % planes.length];
+                    long monto = catalogo.precio(meses);
+                    saldo += monto;
+                    int dni = PRIMER_DNI_SOCIO + s;
+                    sb.append("HABER|Pago de cuota del socio ").append(nombre(s)).append(' ').append(apellido(s))
+                            .append('|').append(Dinero.aTexto(monto)).append("|SOCIO;").append(dni).append(';')
+                            .append(nombre(s)).append(';').append(apellido(s)).append(';')
+                            .append(MEMBRESIAS[s % MEMBRESIAS.length]).append(';').append(meses).append(";000")
+                            .append(dni);
+                } else {
+                    long monto = Dinero.desdePesos(1000 + azar.nextInt(9000));
+                    saldo += monto;
+                    sb.append("HABER|Depósito|").append(Dinero.aTexto(monto)).append("|null");
+                }
+                w.write(sb.append('\n').toString());
+            }
+        }
+        resultado.movimientos = movimientos;
+        resultado.saldo = saldo;
+
+        try (Writer w = abrir(new File(directorio, "gimnasio.txt"))) {
+            w.write("GIMNASIO|Gimnasio Sintético|30123456|Calle Falsa 123|Buenos Aires|000-GYM-SINT|"
+                    + Dinero.aTexto(saldo) + "\n");
+        }
+        resultado.milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        return resultado;
+    }
+
+    private static Writer abrir(File archivo) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(archivo), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    private static StringBuilder dosDigitos(StringBuilder sb, int valor) {
+        return sb.append((char) ('0' + valor / 10)).append((char) ('0' + valor % 10));
+    }
+
+    // Nombres repetibles: dependen solo de la posición
+    private static String nombre(int i) {
+        return NOMBRES[i % NOMBRES.length];
+    }
+
+    private static String apellido(int i) {
+        return APELLIDOS[(i / NOMBRES.length) % APELLIDOS.length];
+    }
+
+    private static long sueldo(int empleado, int entrenadores) {
+        int base = (empleado < entrenadores) ? 450_000 : 300_000;
+        return Dinero.desdePesos(base + (empleado * 37 % 100) * 1000);
+    }
+
+    // Configuración
+
+    public void setSocios(int socios) {
+        this.socios = Math.max(0, socios);
+    }
+
+    public void setEmpleados(int empleados) {
+        this.empleados = Math.max(0, empleados);
+    }
+
+    public void setMovimientos(long movimientos) {
+        this.movimientos = Math.max(0, movimientos);
+    }
+
+    /** Años de historial, hasta la fecha de referencia. */
+    public void setAnios(int anios) {
+        this.anios = Math.max(1, anios);
+    }
+
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /** Fecha de referencia: fin del historial y centro de los vencimientos. */
+    public void setHasta(LocalDate hasta) {
+        this.hasta = hasta;
+    }
+}
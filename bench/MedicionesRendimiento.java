@@ -0,0 +1,404 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mediciones de rendimiento de los caminos críticos de persistencia, del
+ * historial financiero y de las búsquedas por DNI, con distintos tamaños de
+ * datos, para tener una línea de base antes de optimizar.
+ *
+ * Sigue el esquema de JMH sin depender de él (JMH no genera benchmarks para
+ * clases del paquete por defecto, que es donde vive todo el proyecto):
+ *  - cada medición corre en una JVM nueva (un "fork"), así el perfil que el JIT
+ *    armó para una medición no afecta a la siguiente; con varios forks por
+ *    medición se ve además la variación entre JVMs;
+ *  - dentro de cada fork, primero iteraciones de calentamiento (para que el JIT
+ *    compile el código medido) y después las iteraciones medidas, cada una
+ *    cronometrada por separado;
+ *  - el resultado de cada iteración se consume en un campo volatile (como el
+ *    Blackhole de JMH), así el JIT no puede descartar el código medido.
+ *
+ * Informa el tiempo por iteración (promedio y desvío estándar de todas las
+ * iteraciones de todos los forks) y por operación, los bytes asignados por
+ * operación y las recolecciones de basura ocurridas durante la medición (lo
+ * mismo que da el perfilador de GC de JMH). Los bytes asignados son los del
+ * hilo que mide: en cargarDatos las fases corren en paralelo en otros hilos y
+ * no se cuentan.
+ *
+ * El gimnasio lee y escribe en "datos/" relativo al directorio de trabajo, así
+ * que hay que correrlo desde un directorio vacío (nunca desde el del proyecto):
+ *
+ *   javac -encoding UTF-8 -d out src/*.java bench/*.java
+ *   mkdir /tmp/mediciones && cd /tmp/mediciones
+ *   java -cp /ruta/al/proyecto/out MedicionesRendimiento [tamaños] [iteraciones] [forks]
+ *
+ * Por ejemplo "1000,10000,100000 10 2" mide con 1.000, 10.000 y 100.000 socios
+ * (y diez veces más movimientos) haciendo 10 iteraciones de cada medición en
+ * cada uno de 2 forks. Con 0 forks todo corre en la misma JVM (más rápido, pero
+ * las mediciones se influyen entre sí). Los forks heredan las opciones de la
+ * JVM que los lanza (por ejemplo -Xmx).
+ */
+public class MedicionesRendimiento {
+
+    private static final String MARCA = "datos/.mediciones";
+    // Movimientos del historial por cada socio
+    private static final int MOVIMIENTOS_POR_SOCIO = 10;
+    private static final int BUSQUEDAS = 1_000_000;
+    // Fin del historial generado; los movimientos caen en el año anterior
+    private static final LocalDate FECHA_REFERENCIA = LocalDate.of(2026, 1, 1);
+    // Primer argumento con el que el proceso principal lanza cada fork
+    private static final String FORK = "--fork";
+    // Prefijo de la línea con la que un fork informa su resultado
+    private static final String RESULTADO = "RESULTADO;";
+    // Mediciones de cada tamaño, en el orden en que se corren
+    private static final String[] MEDICIONES = { "Gimnasio.cargarDatos", "Gimnasio.guardarSocios",
+            "Gimnasio.guardarEstadoCompleto", "Registro.toCSV", "Socio.fromCSV", "getMovimientosPorMes(mes, año)",
+            "getMovimientosPorMes(0, año)", "getMovimientosPorMes(0, 0)", "calcularResumenMes(mes, año)",
+            "Gimnasio.buscarSocioPorDni", "ConcurrentHashMap.get (referencia)" };
+
+    /** Código medido; retorna un valor que se acumula para que el JIT no lo descarte. */
+    private interface Medible {
+        long correr() throws Exception;
+    }
+
+    private static final com.sun.management.ThreadMXBean HILOS = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+    // Consume el resultado de cada iteración (ver consumir())
+    private static volatile long sumidero;
+
+    private final int iteraciones;
+    private final int calentamiento;
+    // Si no es null, solo se corre esa medición (dentro de un fork)
+    private final String soloMedicion;
+    // Resultados por medición (en el proceso principal) o el de la medición del fork
+    private final Map<String, Resultado> resultados = new LinkedHashMap<>();
+
+    /** Tiempos de las iteraciones medidas y lo que se asignó y recolectó mientras tanto. */
+    private static final class Resultado {
+        private final List<Long> nanosPorIteracion = new ArrayList<>();
+        // Tamaño que se informa (socios o movimientos, según la medición)
+        private long tamanio;
+        private long operacionesPorIteracion;
+        private long bytes;
+        private long recolecciones;
+        private long msRecoleccion;
+
+        private void sumar(Resultado otro) {
+            nanosPorIteracion.addAll(otro.nanosPorIteracion);
+            tamanio = otro.tamanio;
+            operacionesPorIteracion = otro.operacionesPorIteracion;
+            bytes += otro.bytes;
+            recolecciones += otro.recolecciones;
+            msRecoleccion += otro.msRecoleccion;
+        }
+
+        private String aLinea(String nombre) {
+            StringBuilder sb = new StringBuilder(RESULTADO).append(nombre).append(';')
+                    .append(tamanio).append(';').append(operacionesPorIteracion).append(';').append(bytes).append(';')
+                    .append(recolecciones).append(';').append(msRecoleccion).append(';');
+            for (int i = 0; i < nanosPorIteracion.size(); i++) {
+                sb.append(i > 0 ? "," : "").append(nanosPorIteracion.get(i));
+            }
+            return sb.toString();
+        }
+
+        private static Resultado deLinea(String linea, StringBuilder nombre) {
+            String[] campos = linea.substring(RESULTADO.length()).split(";");
+            nombre.append(campos[0]);
+            Resultado r = new Resultado();
+            r.tamanio = Long.parseLong(campos[1]);
+            r.operacionesPorIteracion = Long.parseLong(campos[2]);
+            r.bytes = Long.parseLong(campos[3]);
+            r.recolecciones = Long.parseLong(campos[4]);
+            r.msRecoleccion = Long.parseLong(campos[5]);
+            for (String nanos : campos[6].split(",")) {
+                r.nanosPorIteracion.add(Long.parseLong(nanos));
+            }
+            return r;
+        }
+    }
+
+    private MedicionesRendimiento(int iteraciones, String soloMedicion) {
+        this.iteraciones = iteraciones;
+        this.calentamiento = Math.max(2, iteraciones / 2);
+        this.soloMedicion = soloMedicion;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(FORK)) {
+            correrFork(Integer.parseInt(args[1]), Integer.parseInt(args[2]), MEDICIONES[Integer.parseInt(args[3])]);
+            return;
+        }
+        int[] tamanios = { 1_000, 10_000, 100_000 };
+        if (args.length > 0) {
+            String[] partes = args[0].split(",");
+            tamanios = new int[partes.length];
+            for (int i = 0; i < partes.length; i++) {
+                tamanios[i] = Integer.parseInt(partes[i].trim());
+            }
+        }
+        int iteraciones = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int forks = (args.length > 2) ? Integer.parseInt(args[2]) : 1;
+
+        File datos = new File("datos");
+        if (datos.exists() && !new File(MARCA).exists()) {
+            System.err.println("Ya existe un directorio datos/ en " + new File("").getAbsolutePath()
+                    + "; corra las mediciones desde un directorio vacío para no pisar datos reales.");
+            System.exit(1);
+        }
+
+        System.out.printf("%-34s %9s %12s %10s %12s %12s %6s %8s%n", "Medición", "Tamaño", "ms/iter", "± desvío",
+                "ns/op", "B/op", "GCs", "GC ms");
+        for (int tamanio : tamanios) {
+            prepararDatos(tamanio);
+            MedicionesRendimiento mediciones = new MedicionesRendimiento(iteraciones, null);
+            if (forks <= 0) {
+                mediciones.medirTamanio(tamanio);
+            } else {
+                for (int m = 0; m < MEDICIONES.length; m++) {
+                    for (int f = 0; f < forks; f++) {
+                        mediciones.lanzarFork(tamanio, m);
+                    }
+                }
+            }
+            for (Map.Entry<String, Resultado> e : mediciones.resultados.entrySet()) {
+                imprimir(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /** Corre una sola medición, con los datos que preparó el proceso principal, e informa el resultado. */
+    private static void correrFork(int cantidadSocios, int iteraciones, String medicion) throws Exception {
+        MedicionesRendimiento mediciones = new MedicionesRendimiento(iteraciones, medicion);
+        mediciones.medirTamanio(cantidadSocios);
+        Resultado r = mediciones.resultados.get(medicion);
+        if (r == null) {
+            throw new IllegalArgumentException("Medición desconocida: " + medicion);
+        }
+        System.out.println(r.aLinea(medicion));
+    }
+
+    /**
+     * Corre la medición (su posición en MEDICIONES, que se pasa como número
+     * porque los nombres tienen acentos) en una JVM nueva y acumula su resultado.
+     */
+    private void lanzarFork(int cantidadSocios, int medicion) throws Exception {
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        comando.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                MedicionesRendimiento.class.getName(), FORK, String.valueOf(cantidadSocios),
+                String.valueOf(iteraciones), String.valueOf(medicion)));
+        Process proceso = new ProcessBuilder(comando).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        Resultado resultado = null;
+        StringBuilder nombre = new StringBuilder();
+        try (BufferedReader salida = new BufferedReader(
+                new InputStreamReader(proceso.getInputStream()))) {
+            String linea;
+            while ((linea = salida.readLine()) != null) {
+                if (linea.startsWith(RESULTADO)) {
+                    resultado = Resultado.deLinea(linea, nombre);
+                }
+            }
+        }
+        int estado = proceso.waitFor();
+        if (estado != 0 || resultado == null) {
+            throw new IllegalStateException("El fork de " + MEDICIONES[medicion] + " terminó con estado " + estado);
+        }
+        resultados.computeIfAbsent(nombre.toString(), k -> new Resultado()).sumar(resultado);
+    }
+
+    private static void imprimir(String nombre, Resultado r) {
+        double promedio = 0;
+        for (long nanos : r.nanosPorIteracion) {
+            promedio += nanos;
+        }
+        int n = r.nanosPorIteracion.size();
+        promedio /= n;
+        double varianza = 0;
+        for (long nanos : r.nanosPorIteracion) {
+            varianza += (nanos - promedio) * (nanos - promedio);
+        }
+        double desvio = (n > 1) ? Math.sqrt(varianza / (n - 1)) : 0;
+        long totalOperaciones = n * r.operacionesPorIteracion;
+        System.out.printf("%-34s %9d %12.3f %10.3f %12.1f %12d %6d %8d%n", nombre, r.tamanio, promedio / 1e6,
+                desvio / 1e6, promedio / r.operacionesPorIteracion, r.bytes / totalOperaciones, r.recolecciones,
+                r.msRecoleccion);
+    }
+
+    private void medirTamanio(int cantidadSocios) throws Exception {
+        int cantidadMovimientos = cantidadSocios * MOVIMIENTOS_POR_SOCIO;
+
+        // Carga de los archivos de texto (sin instantánea)
+        medir("Gimnasio.cargarDatos", cantidadSocios, 1, () -> {
+            new File(InstantaneaGimnasio.ARCHIVO_INSTANTANEA).delete();
+            return cargar().getSocios().size();
+        });
+        Gimnasio g = cargar();
+
+        medir("Gimnasio.guardarSocios", cantidadSocios, 1, () -> {
+            g.guardarSocios();
+            return 1;
+        });
+        medir("Gimnasio.guardarEstadoCompleto", cantidadMovimientos, 1, () -> {
+            g.guardarEstadoCompleto();
+            return 1;
+        });
+
+        List<Registro> registros = new ArrayList<>(g.getRegistros());
+        medir("Registro.toCSV", cantidadMovimientos, registros.size(), () -> {
+            long largo = 0;
+            for (Registro r : registros) {
+                largo += r.toCSV().length();
+            }
+            return largo;
+        });
+        List<String> lineasSocios = new ArrayList<>();
+        for (Socio s : g.getSocios()) {
+            lineasSocios.add(s.toCSV());
+        }
+        medir("Socio.fromCSV", cantidadSocios, lineasSocios.size(), () -> {
+            long suma = 0;
+            for (String linea : lineasSocios) {
+                suma += Socio.fromCSV(linea).getDni();
+            }
+            return suma;
+        });
+
+        CuentaBancaria cuenta = g.getCuenta();
+        int anio = FECHA_REFERENCIA.minusDays(1).getYear();
+        medir("getMovimientosPorMes(mes, año)", cantidadMovimientos, 1,
+                () -> cuenta.getMovimientosPorMes(3, anio).size());
+        medir("getMovimientosPorMes(0, año)", cantidadMovimientos, 1,
+                () -> cuenta.getMovimientosPorMes(0, anio).size());
+        medir("getMovimientosPorMes(0, 0)", cantidadMovimientos, 1,
+                () -> cuenta.getMovimientosPorMes(0, 0).size());
+        medir("calcularResumenMes(mes, año)", cantidadMovimientos, 1000, () -> {
+            long suma = 0;
+            for (int i = 0; i < 1000; i++) {
+                suma += cuenta.calcularResumenMes(1 + i % 12, anio)[2];
+            }
+            return suma;
+        });
+
+        // Búsquedas por DNI: la mitad existen y la mitad no
+        int[] dnis = new int[BUSQUEDAS];
+        Random azar = new Random(7);
+        for (int i = 0; i < dnis.length; i++) {
+            dnis[i] = dniSocio(azar.nextInt(cantidadSocios * 2));
+        }
+        medir("Gimnasio.buscarSocioPorDni", cantidadSocios, dnis.length, () -> {
+            long encontrados = 0;
+            for (int dni : dnis) {
+                if (g.buscarSocioPorDni(dni) != null) {
+                    encontrados++;
+                }
+            }
+            return encontrados;
+        });
+        // Comparación del índice por DNI (MapaEnteros) con un ConcurrentHashMap
+        ConcurrentHashMap<Integer, Socio> porDni = new ConcurrentHashMap<>();
+        for (Socio s : g.getSocios()) {
+            porDni.put(s.getDni(), s);
+        }
+        medir("ConcurrentHashMap.get (referencia)", cantidadSocios, dnis.length, () -> {
+            long encontrados = 0;
+            for (int dni : dnis) {
+                if (porDni.get(dni) != null) {
+                    encontrados++;
+                }
+            }
+            return encontrados;
+        });
+        g.cerrar();
+    }
+
+    /** Carga un gimnasio desde los archivos de datos/. */
+    private static Gimnasio cargar() {
+        Gimnasio g = new Gimnasio("Mediciones", 1, "", "");
+        g.cargarDatos();
+        return g;
+    }
+
+    private void medir(String nombre, int tamanio, int operaciones, Medible medible) throws Exception {
+        if (soloMedicion != null && !soloMedicion.equals(nombre)) {
+            return;
+        }
+        for (int i = 0; i < calentamiento; i++) {
+            consumir(medible.correr());
+        }
+        Resultado r = new Resultado();
+        r.tamanio = tamanio;
+        r.operacionesPorIteracion = operaciones;
+        long[] gcAntes = recolecciones();
+        long bytesAntes = HILOS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iteraciones; i++) {
+            long inicio = System.nanoTime();
+            long valor = medible.correr();
+            r.nanosPorIteracion.add(System.nanoTime() - inicio);
+            consumir(valor);
+        }
+        r.bytes = HILOS.getCurrentThreadAllocatedBytes() - bytesAntes;
+        long[] gcDespues = recolecciones();
+        r.recolecciones = gcDespues[0] - gcAntes[0];
+        r.msRecoleccion = gcDespues[1] - gcAntes[1];
+        resultados.computeIfAbsent(nombre, k -> new Resultado()).sumar(r);
+    }
+
+    /**
+     * Consume el resultado de una iteración: se mezcla con un campo volatile,
+     * que el JIT no puede eliminar, así tampoco puede descartar el cálculo.
+     */
+    private static void consumir(long valor) {
+        sumidero ^= valor;
+    }
+
+    /** Cantidad y tiempo (ms) acumulados de recolecciones de basura. */
+    private static long[] recolecciones() {
+        long cantidad = 0;
+        long ms = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            cantidad += Math.max(0, gc.getCollectionCount());
+            ms += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] { cantidad, ms };
+    }
+
+    private static int dniSocio(int i) {
+        return GeneradorDatos.PRIMER_DNI_SOCIO + i;
+    }
+
+    /**
+     * Escribe en datos/, con GeneradorDatos, un gimnasio con la cantidad de
+     * socios indicada y diez movimientos por socio repartidos en el año que
+     * termina en FECHA_REFERENCIA.
+     */
+    private static void prepararDatos(int cantidadSocios) throws Exception {
+        File datos = new File("datos");
+        if (datos.exists()) {
+            for (File f : datos.listFiles()) {
+                f.delete();
+            }
+        }
+        datos.mkdirs();
+        new File(MARCA).createNewFile();
+
+        GeneradorDatos generador = new GeneradorDatos();
+        generador.setSocios(cantidadSocios);
+        generador.setMovimientos((long) cantidadSocios * MOVIMIENTOS_POR_SOCIO);
+        generador.setAnios(1);
+        generador.setHasta(FECHA_REFERENCIA);
+        generador.generar(datos);
+    }
+}
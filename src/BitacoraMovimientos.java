@@ -0,0 +1,103 @@
+import java.util.AbstractList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lista de movimientos de solo anexado y sin candados. Cada escritor reserva
+ * su posición con un incremento atómico (que también sirve de id único y
+ * creciente) y luego publica el registro en esa posición, de modo que varios
+ * hilos pueden anexar a la vez sin bloquearse.
+ *
+ * Los lectores solo ven el prefijo ya publicado: size() no cuenta una
+ * posición hasta que ella y todas las anteriores tienen su registro, así que
+ * get() nunca tiene que esperar a un escritor. Un registro publicado detrás
+ * de una posición reservada y todavía sin publicar aparece cuando esta se
+ * publica.
+ *
+ * Los registros se guardan en bloques cuyo tamaño se duplica (16, 32, 64...),
+ * con un directorio fijo de 32 entradas: los bloques nunca se copian ni se
+ * mueven al crecer, y una cuenta vacía ocupa muy poco.
+ *
+ * Es una vista de solo lectura: no admite quitar ni reemplazar elementos.
+ */
+public class BitacoraMovimientos extends AbstractList<Registro> {
+
+    private static final int BITS_BASE = 4;
+    private static final int BASE = 1 << BITS_BASE;
+    private static final int MAX_BLOQUES = 32 - BITS_BASE;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<Registro>> bloques = new AtomicReferenceArray<>(
+            MAX_BLOQUES);
+    private final AtomicInteger reservados = new AtomicInteger();
+    // Largo del prefijo en el que todas las posiciones están publicadas
+    private final AtomicInteger publicados = new AtomicInteger();
+
+    /**
+     * Reserva la próxima posición de la bitácora. Quien la reserva debe
+     * publicarla con publicar(); la posición + 1 puede usarse como id.
+     */
+    public int reservar() {
+        int posicion = reservados.getAndIncrement();
+        if (posicion < 0) {
+            throw new IllegalStateException("Bitácora de movimientos llena");
+        }
+        return posicion;
+    }
+
+    /**
+     * Publica el registro en una posición reservada con reservar() y extiende el
+     * prefijo publicado hasta la primera posición que siga sin publicar.
+     */
+    public void publicar(int posicion, Registro r) {
+        int n = posicion + BASE;
+        int nroBloque = 31 - Integer.numberOfLeadingZeros(n) - BITS_BASE;
+        bloque(nroBloque).set(n - (BASE << nroBloque), r);
+        // Cada escritor publica antes de mirar la posición pendiente, así que si
+        // este no ve publicada la anterior, el escritor de esa ve la suya y sigue
+        int p = publicados.get();
+        while (p < reservados.get() && leer(p) != null) {
+            publicados.compareAndSet(p, p + 1);
+            p = publicados.get();
+        }
+    }
+
+    /** Reserva una posición y publica el registro en ella. */
+    public int agregar(Registro r) {
+        int posicion = reservar();
+        publicar(posicion, r);
+        return posicion;
+    }
+
+    private AtomicReferenceArray<Registro> bloque(int nroBloque) {
+        AtomicReferenceArray<Registro> b = bloques.get(nroBloque);
+        if (b == null) {
+            // Si dos hilos lo crean a la vez, gana el primero y el otro usa ese
+            bloques.compareAndSet(nroBloque, null, new AtomicReferenceArray<>(BASE << nroBloque));
+            b = bloques.get(nroBloque);
+        }
+        return b;
+    }
+
+    /** Registro de la posición, o null si todavía no se publicó. */
+    private Registro leer(int posicion) {
+        int n = posicion + BASE;
+        int nroBloque = 31 - Integer.numberOfLeadingZeros(n) - BITS_BASE;
+        AtomicReferenceArray<Registro> b = bloques.get(nroBloque);
+        return (b != null) ? b.get(n - (BASE << nroBloque)) : null;
+    }
+
+    /** Retorna el registro de la posición, que debe estar dentro de size(). */
+    @Override
+    public Registro get(int indice) {
+        if (indice < 0 || indice >= publicados.get()) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + size());
+        }
+        return leer(indice);
+    }
+
+    /** Cantidad de registros del prefijo publicado. */
+    @Override
+    public int size() {
+        return publicados.get();
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+/**
+ * Catálogo de precios de los planes, según su duración en meses. Es la única
+ * fuente de precios: la usan tanto el pago manual de cuotas como el motor de
+ * facturación. Los precios se expresan en centavos (ver Dinero).
+ */
+public class CatalogoPlanes {
+
+    private static final CatalogoPlanes POR_DEFECTO = new CatalogoPlanes(
+            new int[] { 1, 3, 6, 12 },
+            new long[] { Dinero.desdePesos(35000), Dinero.desdePesos(100000), Dinero.desdePesos(550000),
+                    Dinero.desdePesos(1100000) });
+
+    // duraciones ordenadas y su precio en la misma posición
+    private final int[] meses;
+    private final long[] precios;
+
+    public CatalogoPlanes(int[] meses, long[] precios) {
+        if (meses.length != precios.length) {
+            throw new IllegalArgumentException("Cada plan debe tener su precio");
+        }
+        this.meses = meses.clone();
+        this.precios = precios.clone();
+        for (int i = 1; i < this.meses.length; i++) {
+            if (this.meses[i] <= this.meses[i - 1]) {
+                throw new IllegalArgumentException("Los planes deben estar ordenados por duración");
+            }
+        }
+    }
+
+    /** Catálogo con los planes vigentes del gimnasio. */
+    public static CatalogoPlanes porDefecto() {
+        return POR_DEFECTO;
+    }
+
+    /** Precio en centavos del plan de esa duración, o -1 si no existe. */
+    public long precio(int planMeses) {
+        int i = Arrays.binarySearch(meses, planMeses);
+        return (i >= 0) ? precios[i] : -1;
+    }
+
+    /** Duraciones disponibles, de menor a mayor. */
+    public int[] getMeses() {
+        return meses.clone();
+    }
+
+    /** Texto para mostrar el plan, por ejemplo "3 meses - $100000.00". */
+    public String descripcion(int planMeses) {
+        long precio = precio(planMeses);
+        String duracion = planMeses + (planMeses == 1 ? " mes" : " meses");
+        return (precio >= 0) ? duracion + " - $" + Dinero.aTexto(precio) : duracion;
+    }
+}
@@ -2,21 +2,59 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-/** Clase que representa una actividad o sesión dictada en el gimnasio */
+/**
+ * Clase que representa una actividad o sesión dictada en el gimnasio.
+ *
+ * Los socios se inscriben hasta completar el cupo; los siguientes quedan en una
+ * lista de espera (en orden de llegada) y, cuando alguien cancela, el primero
+ * de la lista pasa a ocupar el lugar. Las inscripciones y cancelaciones de una
+ * clase se serializan con su propio candado (junto con su registro en la
+ * persistencia, para que el archivo quede en el mismo orden), mientras que las
+ * consultas (si un socio está inscripto, lugares libres, listados) no toman
+ * candado.
+ */
 public class Clase {
 
+    /** Resultado de inscribir un socio en la clase. */
+    public enum ResultadoInscripcion {
+        INSCRIPTO, EN_ESPERA, YA_INSCRIPTO, YA_EN_ESPERA, RECHAZADO
+    }
+
+    /** Lugar en la lista de espera (identifica la entrada aunque el socio vuelva a anotarse). */
+    private static final class Espera {
+        private final Socio socio;
+
+        private Espera(Socio socio) {
+            this.socio = socio;
+        }
+    }
+
     private String nombre;
     private String horario;
+    // casilla de la grilla semanal (Gimnasio.casilla), calculada una vez del horario
+    private volatile int casilla;
+    // true mientras la clase ocupa su casilla en la grilla de un gimnasio; el
+    // horario solo se cambia entonces con Gimnasio.cambiarHorarioClase
+    volatile boolean enGrilla;
     private int cupoMaximo;
     private Entrenador entrenador;
     private List<Socio> sociosInscriptos;
+    // Índices de inscripción: inscriptos y lista de espera por DNI. La cola puede
+    // tener entradas canceladas, que se descartan al llegar a su turno
+    private final Object candadoInscripciones = new Object();
+    private final MapaEnteros<Socio> inscriptosPorDni = new MapaEnteros<>();
+    private final MapaEnteros<Espera> enEsperaPorDni = new MapaEnteros<>();
+    private final Queue<Espera> listaEspera = new ConcurrentLinkedQueue<>();
 
     public Clase(String nombre, String horario, int cupoMaximo,
             Entrenador entrenador, List<Socio> sociosInscriptos) {
         this.nombre = nombre;
         this.horario = horario;
+        this.casilla = Gimnasio.casillaDeHorario(horario);
         this.cupoMaximo = cupoMaximo;
         this.entrenador = entrenador;
         this.sociosInscriptos = crearListaInicial(sociosInscriptos);
@@ -25,30 +63,251 @@ public class Clase {
     public Clase(String nombre, String dia, String turno, int cupoMaximo, Entrenador entrenador) {
         this.nombre = nombre;
         this.horario = dia + " - " + turno;
+        this.casilla = Gimnasio.casillaDeHorario(this.horario);
         this.cupoMaximo = cupoMaximo;
         this.entrenador = entrenador;
-        this.sociosInscriptos = new ArrayList<>();
+        this.sociosInscriptos = new CopyOnWriteArrayList<>();
+    }
+
+    // Inscripciones
+
+    /**
+     * Inscribe al socio si queda cupo y no hay nadie esperando; si no, lo agrega
+     * al final de la lista de espera. Si g no es null, el cambio se registra en
+     * la persistencia de inscripciones del gimnasio (y un socio que no pertenece
+     * al gimnasio es rechazado).
+     *
+     * Con gimnasio se toma primero el candado de la franja del socio, en el
+     * mismo orden que Socio.eliminarDelGimnasio, así el socio no puede darse de
+     * baja entre la verificación y la inscripción.
+     */
+    public ResultadoInscripcion inscribir(Socio s, Gimnasio g) {
+        if (s == null) {
+            return ResultadoInscripcion.RECHAZADO;
+        }
+        if (g == null) {
+            return inscribirBajoCandado(s, null);
+        }
+        synchronized (g.candadoSocio(s.getDni())) {
+            if (g.buscarSocioPorDni(s.getDni()) != s) {
+                return ResultadoInscripcion.RECHAZADO;
+            }
+            return inscribirBajoCandado(s, g);
+        }
+    }
+
+    private ResultadoInscripcion inscribirBajoCandado(Socio s, Gimnasio g) {
+        synchronized (candadoInscripciones) {
+            int dni = s.getDni();
+            if (inscriptosPorDni.obtener(dni) != null) {
+                return ResultadoInscripcion.YA_INSCRIPTO;
+            }
+            if (enEsperaPorDni.obtener(dni) != null) {
+                return ResultadoInscripcion.YA_EN_ESPERA;
+            }
+            // Si hay lugares libres (por ejemplo porque aumentó el cupo) primero se
+            // ocupan con la lista de espera; solo si queda lugar entra el nuevo
+            promoverEnEspera(g);
+            if (sociosInscriptos.size() < cupoMaximo) {
+                return confirmarInscripcion(s, g)
+                        ? ResultadoInscripcion.INSCRIPTO
+                        : ResultadoInscripcion.RECHAZADO;
+            }
+            Espera espera = new Espera(s);
+            enEsperaPorDni.poner(dni, espera);
+            listaEspera.add(espera);
+            if (g != null) {
+                g.registrarInscripcion(this, s, true);
+            }
+            return ResultadoInscripcion.EN_ESPERA;
+        }
+    }
+
+    /**
+     * Cancela la inscripción del socio, o su lugar en la lista de espera. Si se
+     * libera un lugar, lo ocupa el primero de la lista de espera. Retorna false
+     * si el socio no estaba inscripto ni esperando.
+     */
+    public boolean cancelarInscripcion(Socio s, Gimnasio g) {
+        if (s == null) {
+            return false;
+        }
+        synchronized (candadoInscripciones) {
+            int dni = s.getDni();
+            if (enEsperaPorDni.quitar(dni) != null) {
+                // La entrada queda en la cola y se descarta al llegar a su turno
+                if (g != null) {
+                    g.registrarBajaInscripcion(this, dni);
+                }
+                return true;
+            }
+            Socio inscripto = inscriptosPorDni.quitar(dni);
+            if (inscripto == null) {
+                return false;
+            }
+            sociosInscriptos.remove(inscripto);
+            inscripto.quitarClaseInscripta(this);
+            if (g != null) {
+                g.registrarBajaInscripcion(this, dni);
+            }
+            promoverEnEspera(g);
+            return true;
+        }
+    }
+
+    /** Ocupa los lugares libres con los primeros de la lista de espera. */
+    private void promoverEnEspera(Gimnasio g) {
+        while (sociosInscriptos.size() < cupoMaximo) {
+            Espera espera = listaEspera.poll();
+            if (espera == null) {
+                return;
+            }
+            Socio s = espera.socio;
+            if (!enEsperaPorDni.quitar(s.getDni(), espera)) {
+                continue; // canceló mientras esperaba
+            }
+            // Acá no se toma el candado del socio (invertiría el orden con
+            // eliminarDelGimnasio): si se dio de baja, agregarClaseInscripta lo rechaza
+            if ((g != null && g.buscarSocioPorDni(s.getDni()) != s) || !confirmarInscripcion(s, g)) {
+                if (g != null) {
+                    g.registrarBajaInscripcion(this, s.getDni()); // se dio de baja del gimnasio
+                }
+            }
+        }
+    }
+
+    /**
+     * Ocupa un lugar con el socio. Retorna false (sin inscribirlo) si el socio
+     * ya fue eliminado del gimnasio.
+     */
+    private boolean confirmarInscripcion(Socio s, Gimnasio g) {
+        if (!s.agregarClaseInscripta(this)) {
+            return false;
+        }
+        inscriptosPorDni.poner(s.getDni(), s);
+        sociosInscriptos.add(s);
+        if (g != null) {
+            g.registrarInscripcion(this, s, false);
+        }
+        return true;
+    }
+
+    /**
+     * Restaura una inscripción leída de los archivos, sin verificar el cupo ni
+     * registrarla de nuevo.
+     */
+    void restaurarInscripcion(Socio s, boolean enEspera) {
+        synchronized (candadoInscripciones) {
+            int dni = s.getDni();
+            if (inscriptosPorDni.obtener(dni) != null || enEsperaPorDni.obtener(dni) != null) {
+                return;
+            }
+            if (enEspera) {
+                Espera espera = new Espera(s);
+                enEsperaPorDni.poner(dni, espera);
+                listaEspera.add(espera);
+            } else {
+                inscriptosPorDni.poner(dni, s);
+                sociosInscriptos.add(s);
+                s.agregarClaseInscripta(this);
+            }
+        }
+    }
+
+    /** Quita todas las inscripciones y la lista de espera (al eliminar la clase). */
+    void liberarInscripciones() {
+        synchronized (candadoInscripciones) {
+            for (Socio s : sociosInscriptos) {
+                s.quitarClaseInscripta(this);
+            }
+            sociosInscriptos.clear();
+            inscriptosPorDni.limpiar();
+            enEsperaPorDni.limpiar();
+            listaEspera.clear();
+        }
+    }
+
+    /**
+     * Agrega las líneas de inscripción de la clase (inscriptos y luego la lista
+     * de espera en orden) con el formato horario;dni;INSCRIPTO|ESPERA.
+     */
+    void agregarLineasInscripcion(List<String> lineas) {
+        for (Socio s : sociosInscriptos) {
+            lineas.add(lineaInscripcion(s.getDni(), false));
+        }
+        for (Espera espera : listaEspera) {
+            if (enEsperaPorDni.obtener(espera.socio.getDni()) == espera) {
+                lineas.add(lineaInscripcion(espera.socio.getDni(), true));
+            }
+        }
+    }
+
+    String lineaInscripcion(int dni, boolean enEspera) {
+        return claveInscripcion(dni) + ";" + (enEspera ? "ESPERA" : "INSCRIPTO");
+    }
+
+    /** Clave de la inscripción en la persistencia: horario;dni. */
+    String claveInscripcion(int dni) {
+        return horario + ";" + dni;
+    }
+
+    public boolean estaInscripto(int dni) {
+        return inscriptosPorDni.obtener(dni) != null;
+    }
+
+    public boolean estaEnEspera(int dni) {
+        return enEsperaPorDni.obtener(dni) != null;
+    }
+
+    public int getLugaresDisponibles() {
+        return Math.max(0, cupoMaximo - sociosInscriptos.size());
+    }
+
+    /** Socios en la lista de espera, en orden de llegada. */
+    public List<Socio> getListaEspera() {
+        List<Socio> enEspera = new ArrayList<>();
+        for (Espera espera : listaEspera) {
+            if (enEsperaPorDni.obtener(espera.socio.getDni()) == espera) {
+                enEspera.add(espera.socio);
+            }
+        }
+        return enEspera;
     }
 
     public void agregarAlGimnasio(Gimnasio g) {
-        if (g != null && !g.clasesPorHorario.containsKey(this.getHorario())) {
-            g.clases.add(this);
-            g.clasesPorHorario.put(this.getHorario(), this);
-            // Vincular clase con entrenador si corresponde
-            if (this.getEntrenador() != null) {
-                this.getEntrenador().asignarClase(this);
+        if (g == null || casilla < 0) {
+            return;
+        }
+        synchronized (g.candadoHorario(casilla)) {
+            if (g.clasesPorCasilla.compareAndSet(casilla, null, this)) {
+                enGrilla = true;
+                g.clases.add(this);
+                // Vincular clase con entrenador si corresponde
+                if (this.getEntrenador() != null) {
+                    this.getEntrenador().asignarClase(this);
+                }
+                g.registrarModificacionClase(this);
             }
-            g.guardarClases();
         }
     }
 
     public void eliminarDelGimnasio(Gimnasio g) {
-        if (g != null && g.clases.remove(this)) {
-            g.clasesPorHorario.remove(this.getHorario());
-            if (this.getEntrenador() != null) {
-                this.getEntrenador().getClasesAsignadas().remove(this);
+        if (g == null || casilla < 0) {
+            return;
+        }
+        synchronized (g.candadoHorario(casilla)) {
+            if (g.clasesPorCasilla.compareAndSet(casilla, this, null)) {
+                enGrilla = false;
+                g.clases.remove(this);
+                if (this.getEntrenador() != null) {
+                    this.getEntrenador().desasignarClase(this);
+                }
+                g.registrarBajaClase(this);
+                // Las inscripciones de la clase se descartan y se compacta su archivo,
+                // así no quedan asociadas a otra clase que se cree en el mismo horario
+                liberarInscripciones();
+                g.guardarInscripciones();
             }
-            g.guardarClases();
         }
     }
 
@@ -57,7 +316,7 @@ public class Clase {
         return nombre + ";" + horario + ";" + cupoMaximo + ";" + dniEntrenador;
     }
 
-    public static Clase fromCSV(String linea, Map<Integer, Empleado> empleados) {
+    public static Clase fromCSV(String linea, MapaEnteros<Empleado> empleados) {
         String[] datos = linea.split(";");
         if (datos.length >= 4) {
             String nombre = datos[0];
@@ -67,21 +326,45 @@ public class Clase {
 
             Entrenador ent = null;
             if (!dniEntStr.equals("null") && empleados != null) {
-                Empleado emp = empleados.get(Integer.parseInt(dniEntStr));
-                if (emp instanceof Entrenador) {
-                    ent = (Entrenador) emp;
-                }
+                ent = buscarEntrenador(empleados, Integer.parseInt(dniEntStr));
             }
+            return crearDesdeArchivo(nombre, horario, cupo, ent);
+        }
+        return null;
+    }
 
-            Clase c = new Clase(nombre, horario, cupo, ent, null);
-            if (ent != null) {
-                ent.asignarClase(c);
+    /**
+     * Crea una clase a partir de la línea actual del lector, con el mismo
+     * formato que fromCSV.
+     */
+    public static Clase fromLector(LectorDelimitado lector, MapaEnteros<Empleado> empleados) {
+        if (lector.cantidadCampos() >= 4) {
+            String nombre = lector.campoTexto(0);
+            String horario = lector.campoTexto(1);
+            int cupo = lector.campoEntero(2);
+
+            Entrenador ent = null;
+            if (!lector.campoEs(3, "null") && empleados != null) {
+                ent = buscarEntrenador(empleados, lector.campoEntero(3));
             }
-            return c;
+            return crearDesdeArchivo(nombre, horario, cupo, ent);
         }
         return null;
     }
 
+    private static Entrenador buscarEntrenador(MapaEnteros<Empleado> empleados, int dni) {
+        Empleado emp = empleados.obtener(dni);
+        return (emp instanceof Entrenador) ? (Entrenador) emp : null;
+    }
+
+    private static Clase crearDesdeArchivo(String nombre, String horario, int cupo, Entrenador ent) {
+        Clase c = new Clase(nombre, horario, cupo, ent, null);
+        if (ent != null) {
+            ent.asignarClase(c);
+        }
+        return c;
+    }
+
     @Override
     public String toString() {
         return "Clase{" +
@@ -107,8 +390,34 @@ public class Clase {
         return horario;
     }
 
+    /**
+     * Cambia el horario de una clase que todavía no está en un gimnasio. Para
+     * una que ya ocupa su casilla hay que usar Gimnasio.cambiarHorarioClase, que
+     * la mueve de casilla.
+     */
     public void setHorario(String horario) {
-        this.horario = horario;
+        if (enGrilla) {
+            throw new IllegalStateException(
+                    "La clase ya está en el gimnasio: use Gimnasio.cambiarHorarioClase");
+        }
+        cambiarHorario(horario);
+    }
+
+    /**
+     * Cambia el horario (y la casilla). Lo llama Gimnasio.cambiarHorarioClase
+     * con los candados de las dos casillas tomados; bajo el candado de la clase
+     * para que ninguna inscripción se registre con la clave a medio cambiar.
+     */
+    void cambiarHorario(String horario) {
+        synchronized (candadoInscripciones) {
+            this.horario = horario;
+            this.casilla = Gimnasio.casillaDeHorario(horario);
+        }
+    }
+
+    /** Casilla de la grilla semanal del horario, o -1 si no corresponde a ninguna. */
+    public int getCasilla() {
+        return casilla;
     }
 
     public int getCupoMaximo() {
@@ -132,6 +441,14 @@ public class Clase {
     }
 
     private List<Socio> crearListaInicial(List<Socio> socios) {
-        return socios != null ? socios : new ArrayList<>();
+        List<Socio> lista = new ArrayList<>();
+        if (socios != null) {
+            for (Socio s : socios) {
+                if (inscriptosPorDni.ponerSiAusente(s.getDni(), s) == null) {
+                    lista.add(s);
+                }
+            }
+        }
+        return new CopyOnWriteArrayList<>(lista);
     }
 }
@@ -0,0 +1,179 @@
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Colección concurrente de las entidades del gimnasio (socios, empleados,
+ * clases), indexada por su clave (el DNI o la casilla del horario) en un
+ * ConcurrentHashMap.
+ *
+ * Agregar o quitar una entidad es una operación del mapa y no copia nada, a
+ * diferencia de una lista copy-on-write, que copia el arreglo completo en cada
+ * alta o baja (O(n²) para una importación o una facturación masiva).
+ *
+ * Cada entidad recibe un número de orden al agregarse, y agregar otra con la
+ * misma clave la reemplaza en su lugar, como hace un cambio del delta. Se
+ * recorre sobre una instantánea en orden de alta: el iterador no bloquea ni
+ * lanza ConcurrentModificationException y ve la colección tal como estaba al
+ * empezar. Armar la instantánea cuesta O(n), lo mismo que recorrerla.
+ *
+ * Las entidades se comparan por identidad, como en las listas que reemplaza.
+ */
+public class ColeccionEntidades<K, E> extends AbstractCollection<E> {
+
+    /** Entidad con su número de orden. */
+    private static final class Entrada<E> {
+        private final long orden;
+        private final E valor;
+
+        private Entrada(long orden, E valor) {
+            this.orden = orden;
+            this.valor = valor;
+        }
+    }
+
+    private final Function<? super E, K> clave;
+    private final ConcurrentHashMap<K, Entrada<E>> porClave = new ConcurrentHashMap<>();
+    private final AtomicLong proximoOrden = new AtomicLong();
+
+    /** @param clave clave de cada entidad; no debe cambiar mientras la entidad esté en la colección */
+    public ColeccionEntidades(Function<? super E, K> clave) {
+        this.clave = clave;
+    }
+
+    /**
+     * Agrega la entidad al final, o reemplaza en su lugar a la que tenga la
+     * misma clave.
+     */
+    @Override
+    public boolean add(E e) {
+        porClave.compute(clave.apply(e), (k, anterior) -> {
+            if (anterior != null && anterior.valor == e) {
+                return anterior;
+            }
+            long orden = (anterior != null) ? anterior.orden : proximoOrden.getAndIncrement();
+            return new Entrada<>(orden, e);
+        });
+        return true;
+    }
+
+    /** Quita la entidad (si es esa misma instancia la que está con su clave). */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        K k;
+        try {
+            k = clave.apply((E) o);
+        } catch (ClassCastException | NullPointerException ex) {
+            return false;
+        }
+        Entrada<E> entrada = porClave.get(k);
+        return entrada != null && entrada.valor == o && porClave.remove(k, entrada);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        try {
+            Entrada<E> entrada = porClave.get(clave.apply((E) o));
+            return entrada != null && entrada.valor == o;
+        } catch (ClassCastException | NullPointerException ex) {
+            return false;
+        }
+    }
+
+    /** Entidad con esa clave, o null. */
+    public E obtener(K k) {
+        Entrada<E> entrada = porClave.get(k);
+        return (entrada != null) ? entrada.valor : null;
+    }
+
+    @Override
+    public int size() {
+        return porClave.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return porClave.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        porClave.clear();
+    }
+
+    /** Recorre una instantánea de las entidades, en orden de alta. */
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> valores = instantanea().iterator();
+        return new Iterator<E>() {
+            private E ultima;
+
+            @Override
+            public boolean hasNext() {
+                return valores.hasNext();
+            }
+
+            @Override
+            public E next() {
+                ultima = valores.next();
+                return ultima;
+            }
+
+            @Override
+            public void remove() {
+                if (ultima == null) {
+                    throw new IllegalStateException();
+                }
+                ColeccionEntidades.this.remove(ultima);
+                ultima = null;
+            }
+        };
+    }
+
+    /** Copia inmodificable de las entidades, en orden de alta. */
+    @SuppressWarnings("unchecked")
+    public List<E> instantanea() {
+        List<Entrada<E>> entradas = new ArrayList<>(porClave.values());
+        if (entradas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long minimo = Long.MAX_VALUE;
+        long maximo = Long.MIN_VALUE;
+        for (Entrada<E> entrada : entradas) {
+            minimo = Math.min(minimo, entrada.orden);
+            maximo = Math.max(maximo, entrada.orden);
+        }
+        Object[] valores;
+        long rango = maximo - minimo + 1;
+        if (rango <= 4L * entradas.size()) {
+            // Los números de orden son casi consecutivos: cada entidad va a su
+            // posición y se descartan los huecos de las bajas (O(n))
+            Object[] porOrden = new Object[(int) rango];
+            for (Entrada<E> entrada : entradas) {
+                porOrden[(int) (entrada.orden - minimo)] = entrada.valor;
+            }
+            valores = new Object[entradas.size()];
+            int cantidad = 0;
+            for (Object valor : porOrden) {
+                if (valor != null) {
+                    valores[cantidad++] = valor;
+                }
+            }
+        } else {
+            entradas.sort((a, b) -> Long.compare(a.orden, b.orden));
+            valores = new Object[entradas.size()];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = entradas.get(i).valor;
+            }
+        }
+        return (List<E>) Collections.unmodifiableList(Arrays.asList(valores));
+    }
+}
@@ -1,100 +1,182 @@
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Clase que representa una cuenta bancaria simple con saldo y registro de
- * movimientos (débitos y créditos)
+ * movimientos (débitos y créditos). La cuenta del gimnasio la comparten todas
+ * las recepciones, por lo que no usa candados: el saldo se actualiza con
+ * compare-and-set (la verificación de fondos de extraer() se hace en el mismo
+ * paso) y los movimientos se anexan a una BitacoraMovimientos, que asigna ids
+ * únicos y crecientes. Además cada movimiento se anexa a la bitácora de su año
+ * y mes, para que las consultas por período no recorran todo el historial, y
+ * se suma a los totales de haber y debe de su mes, de su año y generales, con
+ * lo que los resúmenes se leen sin recorrer movimientos.
+ *
+ * Todos los montos (saldo, depósitos y extracciones) se expresan en centavos
+ * (ver Dinero), con lo que el saldo es un entero exacto.
  */
 public class CuentaBancaria {
 
     private String nroCuenta;
-    private double saldo;
+    // saldo en centavos
+    private final AtomicLong saldo;
     private String titular;
     // movimientos internos de la cuenta (DEBE/HABER)
-    private List<Registro> movimientos = new ArrayList<>();
+    private final BitacoraMovimientos movimientos = new BitacoraMovimientos();
+    // los mismos movimientos agrupados por Registro.getPeriodo(), ordenados
+    private final ConcurrentSkipListMap<Integer, BitacoraMovimientos> movimientosPorPeriodo = new ConcurrentSkipListMap<>();
+    // totales acumulados: general, por año, por período y por mes de todos los años
+    private final Totales totalesGenerales = new Totales();
+    private final Map<Integer, Totales> totalesPorAnio = new ConcurrentHashMap<>();
+    private final Map<Integer, Totales> totalesPorPeriodo = new ConcurrentHashMap<>();
+    private final Totales[] totalesPorMesDelAnio = new Totales[12];
 
-    public CuentaBancaria(String nroCuenta, double saldo, String titular) {
+    public CuentaBancaria(String nroCuenta, long saldo, String titular) {
         this.nroCuenta = nroCuenta;
-        this.saldo = saldo;
+        this.saldo = new AtomicLong(saldo);
         this.titular = titular;
+        for (int i = 0; i < totalesPorMesDelAnio.length; i++) {
+            totalesPorMesDelAnio[i] = new Totales();
+        }
     }
 
     // Depósito genérico (HABER)
-    public void depositar(double monto) {
+    public void depositar(long monto) {
         depositar(monto, "Depósito");
     }
 
     // Depósito con descripción personalizada
-    public void depositar(double monto, String descripcion) {
-        if (monto > 0) {
-            saldo += monto;
-            // registrar movimiento
-            Registro r = new Registro(movimientos.size() + 1, new Date(), "HABER", descripcion, monto, null, null,
-                    null);
-            movimientos.add(r);
-        }
+    public void depositar(long monto, String descripcion) {
+        depositar(monto, descripcion, null, null, null);
     }
 
     // Depósito vinculando entidad (socio/empleado/clase)
-    public void depositar(double monto, String descripcion, Socio socio, Empleado empleado, Clase clase) {
+    public void depositar(long monto, String descripcion, Socio socio, Empleado empleado, Clase clase) {
         if (monto > 0) {
-            saldo += monto;
-            Registro r = new Registro(movimientos.size() + 1, new Date(), "HABER", descripcion, monto, socio, empleado,
-                    clase);
-            movimientos.add(r);
+            saldo.getAndAdd(monto);
+            registrar("HABER", descripcion, monto, socio, empleado, clase);
         }
     }
 
     // Extracción genérica (DEBE)
-    public boolean extraer(double monto) {
+    public boolean extraer(long monto) {
         return extraer(monto, "Extracción");
     }
 
     // Extracción con descripción
-    public boolean extraer(double monto, String descripcion) {
-        if (monto > 0 && monto <= saldo) {
-            saldo -= monto;
-            Registro r = new Registro(movimientos.size() + 1, new Date(), "DEBE", descripcion, monto, null, null, null);
-            movimientos.add(r);
-            return true;
-        }
-        return false;
+    public boolean extraer(long monto, String descripcion) {
+        return extraer(monto, descripcion, null, null, null);
     }
 
     // Extracción vinculando entidad (socio/empleado/clase)
-    public boolean extraer(double monto, String descripcion, Socio socio, Empleado empleado, Clase clase) {
-        if (monto > 0 && monto <= saldo) {
-            saldo -= monto;
-            Registro r = new Registro(movimientos.size() + 1, new Date(), "DEBE", descripcion, monto, socio, empleado,
-                    clase);
-            movimientos.add(r);
+    public boolean extraer(long monto, String descripcion, Socio socio, Empleado empleado, Clase clase) {
+        if (monto > 0 && restarSiAlcanza(monto)) {
+            registrar("DEBE", descripcion, monto, socio, empleado, clase);
             return true;
         }
         return false;
     }
 
     // Extracción forzada (permite saldo negativo)
-    public boolean extraerForzado(double monto, String descripcion, Socio socio, Empleado empleado, Clase clase) {
+    public boolean extraerForzado(long monto, String descripcion, Socio socio, Empleado empleado, Clase clase) {
         if (monto > 0) {
-            saldo -= monto;
-            Registro r = new Registro(movimientos.size() + 1, new Date(), "DEBE", descripcion, monto, socio, empleado,
-                    clase);
-            movimientos.add(r);
+            saldo.getAndAdd(-monto);
+            registrar("DEBE", descripcion, monto, socio, empleado, clase);
             return true;
         }
         return false;
     }
 
+    /**
+     * Extrae varios montos juntos (por ejemplo, una liquidación de sueldos): el
+     * total se verifica y se resta en un único paso atómico y luego se registra
+     * un movimiento DEBE por cada monto. Si el total no alcanza no se extrae
+     * nada. Las descripciones y los empleados van en paralelo a los montos.
+     */
+    public boolean extraerEnLote(long[] montos, List<String> descripciones, List<Empleado> empleados) {
+        long total = 0;
+        for (long monto : montos) {
+            if (monto <= 0) {
+                return false;
+            }
+            total = Math.addExact(total, monto);
+        }
+        if (total == 0 || !restarSiAlcanza(total)) {
+            return false;
+        }
+        for (int i = 0; i < montos.length; i++) {
+            registrar("DEBE", descripciones.get(i), montos[i], null, empleados.get(i), null);
+        }
+        return true;
+    }
+
+    /**
+     * Suma al saldo movimientos que ya están en el historial pero que el saldo
+     * guardado no incluía (ver Gimnasio.cargarRegistrosFinancieros).
+     */
+    void recuperarSaldo(long delta) {
+        saldo.getAndAdd(delta);
+    }
+
     /**
      * Agrega un movimiento existente a la lista sin modificar el saldo.
      * Útil para cargar datos históricos.
      */
     public void agregarMovimiento(Registro r) {
         if (r != null) {
-            movimientos.add(r);
+            movimientos.agregar(r);
+            indexar(r);
+        }
+    }
+
+    // Operaciones atómicas sobre el saldo y la bitácora
+
+    /** Resta el monto solo si el saldo alcanza, en un único paso atómico. */
+    private boolean restarSiAlcanza(long monto) {
+        long disponible;
+        do {
+            disponible = saldo.get();
+            if (monto > disponible) {
+                return false;
+            }
+        } while (!saldo.compareAndSet(disponible, disponible - monto));
+        return true;
+    }
+
+    private void registrar(String tipo, String descripcion, long monto, Socio socio, Empleado empleado,
+            Clase clase) {
+        EventosGimnasio.Movimiento evento = new EventosGimnasio.Movimiento();
+        evento.begin();
+        int posicion = movimientos.reservar();
+        Registro r = new Registro(posicion + 1, new Date(), tipo, descripcion, monto, socio, empleado, clase);
+        movimientos.publicar(posicion, r);
+        indexar(r);
+        evento.terminar(nroCuenta, r);
+    }
+
+    private void indexar(Registro r) {
+        int periodo = r.getPeriodo();
+        int clase = clasificar(r.getTipo());
+        if (clase != 0) {
+            totalesGenerales.sumar(clase, r.getMonto());
+        }
+        if (periodo >= 0) {
+            movimientosPorPeriodo.computeIfAbsent(periodo, p -> new BitacoraMovimientos()).agregar(r);
+            if (clase != 0) {
+                totalesPorPeriodo.computeIfAbsent(periodo, p -> new Totales()).sumar(clase, r.getMonto());
+                totalesPorAnio.computeIfAbsent(periodo / 12, a -> new Totales()).sumar(clase, r.getMonto());
+                totalesPorMesDelAnio[periodo % 12].sumar(clase, r.getMonto());
+            }
         }
     }
 
@@ -106,21 +188,12 @@ public class CuentaBancaria {
         if (!pagoRealizado) {
             return false;
         }
-        Registro registro = new Registro(
-                g.registros.size() + 1,
-                new Date(),
-                "DEBE",
-                "Pago de sueldo a " + e.getNombre() + " " + e.getApellido(),
-                e.getSueldo(),
-                null,
-                e,
-                null);
-        g.registros.add(registro);
-        g.guardarEstadoCompleto();
+        g.registrarMovimiento("DEBE", "Pago de sueldo a " + e.getNombre() + " " + e.getApellido(), e.getSueldo(),
+                null, e, null);
         return true;
     }
 
-    public boolean registrarPagoSocio(Socio s, double monto, Gimnasio g) {
+    public boolean registrarPagoSocio(Socio s, long monto, Gimnasio g) {
         if (s == null || g == null) {
             return false;
         }
@@ -128,29 +201,21 @@ public class CuentaBancaria {
         if (!pagoRealizado) {
             return false;
         }
-        Registro registro = new Registro(
-                g.registros.size() + 1,
-                new Date(),
-                "HABER",
-                "Pago de cuota del socio " + s.getNombre() + " " + s.getApellido(),
-                monto,
-                s,
-                null,
-                null);
-        g.registros.add(registro);
-        g.guardarEstadoCompleto();
+        g.registrarMovimiento("HABER", "Pago de cuota del socio " + s.getNombre() + " " + s.getApellido(), monto,
+                s, null, null);
         return true;
     }
 
-    public double getSaldo() {
-        return saldo;
+    /** Saldo actual en centavos. */
+    public long getSaldo() {
+        return saldo.get();
     }
 
     @Override
     public String toString() {
         return "CuentaBancaria{" +
                 "nroCuenta='" + nroCuenta + '\'' +
-                ", saldo=" + saldo +
+                ", saldo=" + Dinero.aTexto(getSaldo()) +
                 ", titular='" + titular + '\'' +
                 '}';
     }
@@ -160,46 +225,144 @@ public class CuentaBancaria {
         return Collections.unmodifiableList(movimientos);
     }
 
+    /**
+     * Retorna los movimientos del mes (1-12) y año indicados. month==0 -> todo el
+     * año; year==0 -> ese mes en todos los años; ambos en 0 -> todos. Solo se
+     * recorren los períodos que coinciden, no el historial completo.
+     */
     public List<Registro> getMovimientosPorMes(int month, int year) {
-        List<Registro> result = new ArrayList<>();
-        Calendar cal = Calendar.getInstance();
-        for (Registro r : movimientos) {
-            Date f = r.getFecha();
-            if (f == null)
-                continue;
-            cal.setTime(f);
-            int y = cal.get(Calendar.YEAR);
-            int m = cal.get(Calendar.MONTH) + 1; // 1-12
-            if ((year == 0 || y == year) && (month == 0 || m == month))
-                result.add(r);
+        return new ArrayList<>(getVistaMovimientosPorMes(month, year));
+    }
+
+    /**
+     * Igual que getMovimientosPorMes, pero sin copiar los movimientos: retorna
+     * una vista de solo lectura sobre las bitácoras de los períodos que
+     * coinciden, con los movimientos que tenían al pedirla. Armarla solo cuesta
+     * recorrer los períodos, así que sirve para mostrar historiales grandes.
+     */
+    public List<Registro> getVistaMovimientosPorMes(int month, int year) {
+        List<BitacoraMovimientos> partes = new ArrayList<>();
+        if (month == 0 && year == 0) {
+            partes.add(movimientos);
+        } else if (month != 0 && year != 0) {
+            BitacoraMovimientos delMes = movimientosPorPeriodo.get(Registro.periodo(year, month));
+            if (delMes != null)
+                partes.add(delMes);
+        } else if (year != 0) {
+            partes.addAll(movimientosPorPeriodo
+                    .subMap(Registro.periodo(year, 1), true, Registro.periodo(year, 12), true).values());
+        } else {
+            for (Map.Entry<Integer, BitacoraMovimientos> e : movimientosPorPeriodo.entrySet()) {
+                if (e.getKey() % 12 == month - 1)
+                    partes.add(e.getValue());
+            }
         }
-        return result;
+        return new VistaMovimientos(partes);
     }
 
     /**
      * Calcula totales (haber, debe, neto) para el mes/año indicado. month 1-12;
-     * month==0 -> todo el año
-     * Retorna un array de 3 posiciones: [0]=haber, [1]=debe, [2]=neto(haber-debe)
+     * month==0 -> todo el año; year==0 -> ese mes en todos los años.
+     * Retorna un array de 3 posiciones en centavos: [0]=haber, [1]=debe,
+     * [2]=neto(haber-debe)
+     *
+     * Los totales se acumulan al registrar cada movimiento, así que la consulta
+     * no recorre los movimientos.
+     */
+    public long[] calcularResumenMes(int month, int year) {
+        Totales totales;
+        if (month < 0 || month > 12) {
+            totales = null;
+        } else if (month == 0 && year == 0) {
+            totales = totalesGenerales;
+        } else if (year == 0) {
+            totales = totalesPorMesDelAnio[month - 1];
+        } else if (month == 0) {
+            totales = totalesPorAnio.get(year);
+        } else {
+            totales = totalesPorPeriodo.get(Registro.periodo(year, month));
+        }
+        return totales != null ? totales.resumen() : new long[3];
+    }
+
+    /**
+     * Clasifica el tipo de operación: 1 si suma al haber, -1 si suma al debe, 0
+     * si no es un movimiento de dinero.
+     */
+    static int clasificar(String tipo) {
+        if (tipo == null)
+            return 0;
+        if (tipo.equalsIgnoreCase("HABER") || tipo.equals("PAGO_CUOTA") || tipo.equals("DEPOSITO"))
+            return 1;
+        if (tipo.equalsIgnoreCase("DEBE") || tipo.equals("PAGO_SUELDO") || tipo.equals("ANULACION_PAGO")
+                || tipo.equals("EXTRACCION"))
+            return -1;
+        return 0;
+    }
+
+    /**
+     * Concatenación de solo lectura de varias bitácoras. El tamaño de cada una
+     * se fija al crear la vista, así que los movimientos que se anexen después
+     * no aparecen en ella.
      */
-    public double[] calcularResumenMes(int month, int year) {
-        double haber = 0.0;
-        double debe = 0.0;
-        List<Registro> lista = getMovimientosPorMes(month, year);
-        for (Registro r : lista) {
-            String tipo = r.getTipo();
-            double monto = r.getMonto();
-            if (tipo == null)
-                continue;
-
-            // Clasificar según tipo de operación
-            if (tipo.equalsIgnoreCase("HABER") || tipo.equals("PAGO_CUOTA") || tipo.equals("DEPOSITO")) {
-                haber += monto;
-            } else if (tipo.equalsIgnoreCase("DEBE") || tipo.equals("PAGO_SUELDO") || tipo.equals("ANULACION_PAGO")
-                    || tipo.equals("EXTRACCION")) {
-                debe += monto;
+    private static final class VistaMovimientos extends AbstractList<Registro> implements RandomAccess {
+        private final BitacoraMovimientos[] partes;
+        // posición en la vista del primer movimiento de cada parte
+        private final int[] inicios;
+        private final int cantidadPartes;
+        private final int tamanio;
+
+        private VistaMovimientos(List<BitacoraMovimientos> bitacoras) {
+            partes = new BitacoraMovimientos[bitacoras.size()];
+            inicios = new int[bitacoras.size()];
+            int n = 0;
+            int total = 0;
+            for (BitacoraMovimientos b : bitacoras) {
+                int cantidad = b.size();
+                // sin partes vacías, los inicios quedan estrictamente crecientes
+                if (cantidad > 0) {
+                    partes[n] = b;
+                    inicios[n] = total;
+                    total += cantidad;
+                    n++;
+                }
+            }
+            this.cantidadPartes = n;
+            this.tamanio = total;
+        }
+
+        @Override
+        public Registro get(int indice) {
+            if (indice < 0 || indice >= tamanio) {
+                throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + tamanio);
             }
+            int parte = Arrays.binarySearch(inicios, 0, cantidadPartes, indice);
+            if (parte < 0) {
+                parte = -parte - 2;
+            }
+            return partes[parte].get(indice - inicios[parte]);
+        }
+
+        @Override
+        public int size() {
+            return tamanio;
+        }
+    }
+
+    /** Totales acumulados de haber y debe (en centavos) de un período. */
+    private static final class Totales {
+        private final LongAdder haber = new LongAdder();
+        private final LongAdder debe = new LongAdder();
+
+        private void sumar(int clase, long monto) {
+            (clase > 0 ? haber : debe).add(monto);
+        }
+
+        private long[] resumen() {
+            long h = haber.sum();
+            long d = debe.sum();
+            return new long[] { h, d, h - d };
         }
-        return new double[] { haber, debe, haber - debe };
     }
 
     // Getters y setters
@@ -0,0 +1,53 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Utilidades para montos de dinero en centavos. Los saldos, movimientos y
+ * sueldos se guardan como long en centavos (1234.56 -> 123456), de modo que
+ * las sumas son exactas y no hay errores de redondeo de double al acumular.
+ *
+ * En los archivos se siguen escribiendo en pesos con dos decimales
+ * (1660000.00); al leer se aceptan también los valores guardados antes en
+ * formato double (1660000.0).
+ */
+public final class Dinero {
+
+    private Dinero() {
+    }
+
+    /** Convierte un monto en pesos enteros a centavos. */
+    public static long desdePesos(long pesos) {
+        return Math.multiplyExact(pesos, 100L);
+    }
+
+    /**
+     * Convierte un texto en pesos (1234.56, 1660000.0, 35000) a centavos. Si
+     * tiene más de dos decimales se redondea al centavo más cercano.
+     */
+    public static long desdeTexto(String texto) {
+        if (texto == null) {
+            throw new NumberFormatException("Monto vacío");
+        }
+        try {
+            return new BigDecimal(texto.trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Monto fuera de rango: " + texto);
+        }
+    }
+
+    /** Convierte centavos a texto en pesos con dos decimales (123456 -> 1234.56). */
+    public static String aTexto(long centavos) {
+        StringBuilder sb = new StringBuilder(24);
+        long pesos = centavos / 100;
+        int resto = (int) Math.abs(centavos % 100);
+        if (centavos < 0 && pesos == 0) {
+            sb.append('-');
+        }
+        sb.append(pesos).append('.');
+        if (resto < 10) {
+            sb.append('0');
+        }
+        return sb.append(resto).toString();
+    }
+}
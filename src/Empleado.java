@@ -11,10 +11,10 @@ public abstract class Empleado {
     private int dni;
     private String sexo;
     private Date fechaNacimiento;
-    private double sueldo;
+    private long sueldo; // en centavos
 
     public Empleado(String nombre, String apellido, int dni, String sexo,
-            Date fechaNacimiento, double sueldo) {
+            Date fechaNacimiento, long sueldo) {
         this.nombre = nombre;
         this.apellido = apellido;
         this.dni = dni;
@@ -32,22 +32,35 @@ public abstract class Empleado {
         }
 
         // extraer y registrar el movimiento vinculando el empleado
-        return cuentaGimnasio.extraer(sueldo, "Pago de sueldo a " + this.getNombre() + " (DNI:" + this.getDni() + ")",
-                null, this, null);
+        return cuentaGimnasio.extraer(sueldo, descripcionPagoSueldo(), null, this, null);
+    }
+
+    /** Descripción del movimiento de la cuenta al pagarle el sueldo. */
+    String descripcionPagoSueldo() {
+        return "Pago de sueldo a " + this.getNombre() + " (DNI:" + this.getDni() + ")";
     }
 
     public void agregarAlGimnasio(Gimnasio g) {
-        if (g != null && !g.empleadosPorDni.containsKey(this.getDni())) {
-            g.empleados.add(this);
-            g.empleadosPorDni.put(this.getDni(), this);
-            g.guardarEmpleados();
+        if (g == null) {
+            return;
+        }
+        synchronized (g.candadoEmpleado(this.getDni())) {
+            if (g.empleadosPorDni.ponerSiAusente(this.getDni(), this) == null) {
+                g.empleados.add(this);
+                g.registrarModificacionEmpleado(this);
+            }
         }
     }
 
     public void eliminarDelGimnasio(Gimnasio g) {
-        if (g != null && g.empleados.remove(this)) {
-            g.empleadosPorDni.remove(this.getDni());
-            g.guardarEmpleados();
+        if (g == null) {
+            return;
+        }
+        synchronized (g.candadoEmpleado(this.getDni())) {
+            if (g.empleadosPorDni.quitar(this.getDni(), this)) {
+                g.empleados.remove(this);
+                g.registrarBajaEmpleado(this);
+            }
         }
     }
 
@@ -61,7 +74,7 @@ public abstract class Empleado {
             String nombre = datos[2];
             String apellido = datos[3];
             String sexo = datos[4];
-            double sueldo = Double.parseDouble(datos[5]);
+            long sueldo = Dinero.desdeTexto(datos[5]);
 
             if (tipo.equals("Entrenador")) {
                 String especialidad = datos[6];
@@ -75,6 +88,30 @@ public abstract class Empleado {
         return null;
     }
 
+    /**
+     * Crea un empleado a partir de la línea actual del lector, con el mismo
+     * formato que fromCSV.
+     */
+    public static Empleado fromLector(LectorDelimitado lector) {
+        if (lector.cantidadCampos() >= 7) {
+            int dni = lector.campoEntero(1);
+            String nombre = lector.campoTexto(2);
+            String apellido = lector.campoTexto(3);
+            String sexo = lector.campoTexto(4);
+            long sueldo = lector.campoCentavos(5);
+
+            if (lector.campoEs(0, "Entrenador")) {
+                String especialidad = lector.campoTexto(6);
+                return new Entrenador(nombre, apellido, dni, sexo, new Date(), sueldo, especialidad, null);
+            } else if (lector.campoEs(0, "Limpieza")) {
+                String horario = lector.campoTexto(6);
+                String sector = (lector.cantidadCampos() > 7) ? lector.campoTexto(7) : "";
+                return new Limpieza(nombre, apellido, dni, sexo, new Date(), sueldo, horario, sector);
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return "Empleado{" +
@@ -83,7 +120,7 @@ public abstract class Empleado {
                 ", dni=" + dni +
                 ", sexo='" + sexo + '\'' +
                 ", fechaNacimiento=" + fechaNacimiento +
-                ", sueldo=" + sueldo +
+                ", sueldo=" + Dinero.aTexto(sueldo) +
                 '}';
     }
 
@@ -127,11 +164,12 @@ public abstract class Empleado {
         this.fechaNacimiento = fechaNacimiento;
     }
 
-    public double getSueldo() {
+    /** Sueldo en centavos. */
+    public long getSueldo() {
         return sueldo;
     }
 
-    public void setSueldo(double sueldo) {
+    public void setSueldo(long sueldo) {
         this.sueldo = sueldo;
     }
 }
@@ -12,23 +12,30 @@ public class Entrenador extends Empleado {
     private List<Clase> clasesAsignadas;
 
     public Entrenador(String nombre, String apellido, int dni, String sexo,
-            Date fechaNacimiento, double sueldo,
+            Date fechaNacimiento, long sueldo,
             String especialidad, List<Clase> clasesAsignadas) {
         super(nombre, apellido, dni, sexo, fechaNacimiento, sueldo);
         this.especialidad = especialidad;
         this.clasesAsignadas = crearListaInicial(clasesAsignadas);
     }
 
-    public void asignarClase(Clase c) {
+    // Sincronizados: un entrenador puede recibir clases de distintos horarios a la
+    // vez
+
+    public synchronized void asignarClase(Clase c) {
         if (c != null && !clasesAsignadas.contains(c)) {
             clasesAsignadas.add(c);
         }
     }
 
+    public synchronized void desasignarClase(Clase c) {
+        clasesAsignadas.remove(c);
+    }
+
     @Override
     public String toCSV() {
         // tipo;dni;nombre;apellido;sexo;sueldo;especialidad
-        return "Entrenador;" + getDni() + ";" + getNombre() + ";" + getApellido() + ";" + getSexo() + ";" + getSueldo()
+        return "Entrenador;" + getDni() + ";" + getNombre() + ";" + getApellido() + ";" + getSexo() + ";" + Dinero.aTexto(getSueldo())
                 + ";" + especialidad;
     }
 
@@ -0,0 +1,380 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hilo escritor dedicado para la persistencia del gimnasio. Las operaciones se
+ * encolan en una cola acotada y el hilo las agrupa en lotes (group commit): las
+ * líneas anexadas a un mismo archivo se escriben en una sola apertura y las
+ * reescrituras repetidas de un mismo archivo dentro del lote se reducen a la
+ * última. Así quien modifica el modelo (por ejemplo el hilo de Swing) no espera
+ * al disco.
+ *
+ * Una vez cerrado, las operaciones que todavía lleguen (de un hilo que tomó la
+ * referencia antes del cierre) no se pierden: se escriben en el hilo que llama,
+ * después de que el hilo escritor terminó con lo encolado.
+ *
+ * También contiene los métodos de escritura sincrónica que se usan cuando no
+ * hay escritor asíncrono activo.
+ */
+public class EscritorAsincrono {
+
+    /** Operación encolada: anexar una línea, reescribir un archivo o barrera. */
+    private static class Operacion {
+        private final String ruta;
+        private final String linea;
+        private final Runnable reescritura;
+        private final CountDownLatch barrera;
+
+        private Operacion(String ruta, String linea, Runnable reescritura, CountDownLatch barrera) {
+            this.ruta = ruta;
+            this.linea = linea;
+            this.reescritura = reescritura;
+            this.barrera = barrera;
+        }
+    }
+
+    private final BlockingQueue<Operacion> cola;
+    private final long demoraMaximaMs;
+    private final int loteMaximo;
+    private final Thread hilo;
+    private volatile boolean activo = true;
+    // Encolar toma el candado de lectura; cerrar() toma el de escritura para que
+    // ninguna operación quede en la cola después de que el hilo termine
+    private final ReadWriteLock candadoCierre = new ReentrantReadWriteLock();
+    private boolean cerrado;
+
+    // Métricas
+    private final AtomicLong operaciones = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong nanosCommitTotal = new AtomicLong();
+    private final AtomicLong nanosCommitMaximo = new AtomicLong();
+    private final AtomicLong profundidadMaxima = new AtomicLong();
+    private static final Metricas.Temporizador TIEMPO_LOTE = Metricas.temporizador("escritor.lote");
+    private static final Metricas.Contador ERRORES_ESCRITURA = Metricas.contador("escritura.errores");
+
+    /**
+     * Crea e inicia el escritor.
+     *
+     * @param capacidad      tamaño máximo de la cola (si se llena, quien encola
+     *                       espera)
+     * @param demoraMaximaMs tiempo máximo que se espera para juntar un lote desde
+     *                       la primera operación
+     * @param loteMaximo     cantidad máxima de operaciones por lote
+     */
+    public EscritorAsincrono(int capacidad, long demoraMaximaMs, int loteMaximo) {
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.demoraMaximaMs = demoraMaximaMs;
+        this.loteMaximo = loteMaximo;
+        this.hilo = new Thread(this::ejecutar, "escritor-gimnasio");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /** Encola una línea para anexar al final del archivo indicado. */
+    public void anexar(String ruta, String linea) {
+        encolar(new Operacion(ruta, linea, null, null));
+    }
+
+    /**
+     * Encola la reescritura completa de un archivo. La tarea debe haber capturado
+     * el contenido a escribir al momento de encolarse; si en el mismo lote hay
+     * otra reescritura del mismo archivo, solo se ejecuta la última.
+     */
+    public void reescribir(String ruta, Runnable escritura) {
+        encolar(new Operacion(ruta, null, escritura, null));
+    }
+
+    /** Espera a que todas las operaciones encoladas hasta ahora estén en disco. */
+    public void flush() {
+        if (!hilo.isAlive()) {
+            return;
+        }
+        CountDownLatch barrera = new CountDownLatch(1);
+        encolar(new Operacion(null, null, null, barrera));
+        try {
+            barrera.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deja de aceptar operaciones, espera a que el hilo escritor escriba lo
+     * encolado y lo detiene. Las operaciones posteriores se hacen en el hilo
+     * que llama.
+     */
+    public void cerrar() {
+        candadoCierre.writeLock().lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+        } finally {
+            candadoCierre.writeLock().unlock();
+        }
+        activo = false;
+        hilo.interrupt();
+        esperarHilo();
+    }
+
+    private void esperarHilo() {
+        if (Thread.currentThread() == hilo) {
+            return;
+        }
+        boolean interrumpido = false;
+        while (hilo.isAlive()) {
+            try {
+                hilo.join();
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void encolar(Operacion op) {
+        boolean interrumpido = false;
+        candadoCierre.readLock().lock();
+        try {
+            if (!cerrado) {
+                // Se espera lugar aunque interrumpan, para no desordenar las escrituras
+                while (true) {
+                    try {
+                        cola.put(op);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrumpido = true;
+                    }
+                }
+                profundidadMaxima.accumulateAndGet(cola.size(), Math::max);
+                return;
+            }
+        } finally {
+            candadoCierre.readLock().unlock();
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Escritor cerrado: se escribe acá, después de lo que quedó encolado
+        esperarHilo();
+        ejecutarEnEsteHilo(op);
+    }
+
+    private void ejecutarEnEsteHilo(Operacion op) {
+        if (op.linea != null) {
+            anexarLineas(op.ruta, Collections.singletonList(op.linea));
+        } else if (op.reescritura != null) {
+            ejecutarReescritura(op);
+        } else {
+            op.barrera.countDown();
+        }
+    }
+
+    private void ejecutar() {
+        List<Operacion> lote = new ArrayList<>(loteMaximo);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Operacion primera = cola.poll(1, TimeUnit.SECONDS);
+                if (primera == null)
+                    continue;
+                lote.add(primera);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(demoraMaximaMs);
+                while (lote.size() < loteMaximo && primera.barrera == null) {
+                    long restante = limite - System.nanoTime();
+                    Operacion siguiente = restante > 0 ? cola.poll(restante, TimeUnit.NANOSECONDS) : cola.poll();
+                    if (siguiente == null)
+                        break;
+                    lote.add(siguiente);
+                    if (siguiente.barrera != null)
+                        break;
+                }
+            } catch (InterruptedException e) {
+                // cerrar() interrumpe la espera; se procesa lo que haya en la cola
+                cola.drainTo(lote, loteMaximo);
+            }
+            if (!lote.isEmpty()) {
+                commit(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    private void commit(List<Operacion> lote) {
+        long inicio = System.nanoTime();
+        // Posición de la última reescritura de cada archivo dentro del lote
+        Map<String, Integer> ultimaReescritura = new HashMap<>();
+        for (int i = 0; i < lote.size(); i++) {
+            if (lote.get(i).reescritura != null) {
+                ultimaReescritura.put(lote.get(i).ruta, i);
+            }
+        }
+        Map<String, List<String>> pendientes = new LinkedHashMap<>();
+        int escritas = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            Operacion op = lote.get(i);
+            if (op.linea != null) {
+                pendientes.computeIfAbsent(op.ruta, r -> new ArrayList<>()).add(op.linea);
+                escritas++;
+            } else if (op.reescritura != null) {
+                if (ultimaReescritura.get(op.ruta) != i)
+                    continue;
+                escribirPendientes(pendientes);
+                ejecutarReescritura(op);
+                escritas++;
+            } else {
+                escribirPendientes(pendientes);
+                op.barrera.countDown();
+            }
+        }
+        escribirPendientes(pendientes);
+        operaciones.addAndGet(lote.size());
+        if (escritas > 0) {
+            long nanos = System.nanoTime() - inicio;
+            commits.incrementAndGet();
+            nanosCommitTotal.addAndGet(nanos);
+            nanosCommitMaximo.accumulateAndGet(nanos, Math::max);
+            TIEMPO_LOTE.registrar(nanos);
+        }
+    }
+
+    private void escribirPendientes(Map<String, List<String>> pendientes) {
+        for (Map.Entry<String, List<String>> e : pendientes.entrySet()) {
+            anexarLineas(e.getKey(), e.getValue());
+        }
+        pendientes.clear();
+    }
+
+    private void ejecutarReescritura(Operacion op) {
+        try {
+            op.reescritura.run();
+        } catch (Exception e) {
+            ERRORES_ESCRITURA.incrementar();
+            System.err.println("Error reescribiendo " + op.ruta + ": " + e.getMessage());
+        }
+    }
+
+    // Escritura sincrónica (siempre en UTF-8, que es como LectorDelimitado decodifica el texto)
+
+    /** Anexa las líneas al final del archivo en una sola apertura. */
+    public static void anexarLineas(String ruta, List<String> lineas) {
+        EventosGimnasio.Escritura evento = new EventosGimnasio.Escritura();
+        evento.begin();
+        crearDirectorio(ruta);
+        long largoAnterior = evento.isEnabled() ? new File(ruta).length() : 0;
+        try (PrintWriter pw = new PrintWriter(
+                new BufferedWriter(new FileWriter(ruta, StandardCharsets.UTF_8, true)))) {
+            for (String linea : lineas) {
+                pw.println(linea);
+            }
+        } catch (Exception e) {
+            ERRORES_ESCRITURA.incrementar();
+            System.err.println("Error anexando en " + ruta + ": " + e.getMessage());
+        }
+        if (evento.isEnabled()) {
+            evento.terminar(ruta, "anexar", lineas.size(), new File(ruta).length() - largoAnterior);
+        }
+    }
+
+    /**
+     * Reescribe el archivo completo. Se escribe en un temporal y se reemplaza al
+     * final, para no dejar el archivo a medio escribir. Retorna true si se pudo
+     * guardar.
+     */
+    public static boolean escribirLineas(String ruta, List<String> lineas) {
+        EventosGimnasio.Escritura evento = new EventosGimnasio.Escritura();
+        evento.begin();
+        crearDirectorio(ruta);
+        File temporal = new File(ruta + ".tmp");
+        try (PrintWriter pw = new PrintWriter(
+                new BufferedWriter(new FileWriter(temporal, StandardCharsets.UTF_8)))) {
+            for (String linea : lineas) {
+                pw.println(linea);
+            }
+        } catch (Exception e) {
+            ERRORES_ESCRITURA.incrementar();
+            System.err.println("Error guardando " + ruta + ": " + e.getMessage());
+            return false;
+        }
+        try {
+            Files.move(temporal.toPath(), new File(ruta).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            if (evento.isEnabled()) {
+                evento.terminar(ruta, "reescribir", lineas.size(), new File(ruta).length());
+            }
+            return true;
+        } catch (Exception e) {
+            ERRORES_ESCRITURA.incrementar();
+            System.err.println("Error guardando " + ruta + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void crearDirectorio(String ruta) {
+        File padre = new File(ruta).getAbsoluteFile().getParentFile();
+        if (padre != null) {
+            padre.mkdirs();
+        }
+    }
+
+    // Métricas
+
+    public int getProfundidadCola() {
+        return cola.size();
+    }
+
+    public long getProfundidadMaxima() {
+        return profundidadMaxima.get();
+    }
+
+    public long getOperaciones() {
+        return operaciones.get();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public double getLatenciaCommitPromedioMs() {
+        long n = commits.get();
+        return n == 0 ? 0.0 : nanosCommitTotal.get() / (n * 1_000_000.0);
+    }
+
+    public double getLatenciaCommitMaximaMs() {
+        return nanosCommitMaximo.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "EscritorAsincrono{" +
+                "cola=" + getProfundidadCola() +
+                ", colaMaxima=" + getProfundidadMaxima() +
+                ", operaciones=" + getOperaciones() +
+                ", commits=" + getCommits() +
+                String.format(", latenciaPromedioMs=%.3f, latenciaMaximaMs=%.3f",
+                        getLatenciaCommitPromedioMs(), getLatenciaCommitMaximaMs())
+                +
+                '}';
+    }
+}
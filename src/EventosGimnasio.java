@@ -0,0 +1,230 @@
+import java.util.List;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de Java Flight Recorder del gimnasio, para ver en una grabación
+ * (junto a los de GC, E/S e hilos del propio JDK) dónde se va el tiempo:
+ * cada guardar*, cada escritura de archivo, cada movimiento de la cuenta,
+ * cada fase de la carga de datos, cada tarea en segundo plano y qué opción
+ * se eligió en cada menú.
+ *
+ * Se graban, por ejemplo, con
+ *   java -XX:StartFlightRecording=filename=gimnasio.jfr,settings=profile -cp out Main
+ * y se ven con JDK Mission Control o con "jfr print --categories Gimnasio gimnasio.jfr".
+ *
+ * Si no hay una grabación activa, begin()/commit() no hacen nada y los datos
+ * que cuestan calcular (como los bytes) solo se calculan si shouldCommit().
+ */
+public class EventosGimnasio {
+
+    private EventosGimnasio() {
+    }
+
+    /** Un Gimnasio.guardar*: desde que se pide hasta que se escribe (o se encola, con escritor asíncrono). */
+    @Name("gimnasio.Guardado")
+    @Label("Guardado")
+    @Category({ "Gimnasio", "Persistencia" })
+    @Description("Un guardar* del gimnasio; con escritor asíncrono la escritura se ve en el evento Escritura")
+    static class Guardado extends Event {
+        @Label("Método")
+        String metodo;
+
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Líneas")
+        int lineas;
+
+        @Label("Bytes")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+
+        /** Termina el evento y lo graba con los datos de lo guardado. */
+        void terminar(String metodo, String archivo, List<String> lineas) {
+            end();
+            if (shouldCommit()) {
+                this.metodo = metodo;
+                this.archivo = archivo;
+                this.lineas = lineas.size();
+                this.bytes = bytesUtf8(lineas);
+                commit();
+            }
+        }
+    }
+
+    /** Una escritura de archivo de EscritorAsincrono (reescritura completa o anexado). */
+    @Name("gimnasio.Escritura")
+    @Label("Escritura de archivo")
+    @Category({ "Gimnasio", "Persistencia" })
+    static class Escritura extends Event {
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Operación")
+        String operacion;
+
+        @Label("Líneas")
+        int lineas;
+
+        @Label("Bytes")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+
+        void terminar(String archivo, String operacion, int lineas, long bytes) {
+            end();
+            if (shouldCommit()) {
+                this.archivo = archivo;
+                this.operacion = operacion;
+                this.lineas = lineas;
+                this.bytes = bytes;
+                commit();
+            }
+        }
+    }
+
+    /** Un movimiento registrado en una CuentaBancaria (depósito o extracción). */
+    @Name("gimnasio.Movimiento")
+    @Label("Movimiento de cuenta")
+    @Category({ "Gimnasio", "Cuenta" })
+    static class Movimiento extends Event {
+        @Label("Cuenta")
+        String cuenta;
+
+        @Label("Id")
+        int id;
+
+        @Label("Tipo")
+        String tipo;
+
+        @Label("Descripción")
+        String descripcion;
+
+        @Label("Monto (centavos)")
+        long monto;
+
+        void terminar(String cuenta, Registro r) {
+            end();
+            if (shouldCommit()) {
+                this.cuenta = cuenta;
+                this.id = r.getIdRegistro();
+                this.tipo = r.getTipo();
+                this.descripcion = r.getDescripcion();
+                this.monto = r.getMonto();
+                commit();
+            }
+        }
+    }
+
+    /** Una fase de Gimnasio.cargarDatos. */
+    @Name("gimnasio.FaseCarga")
+    @Label("Fase de carga")
+    @Category({ "Gimnasio", "Persistencia" })
+    @StackTrace(false)
+    static class FaseCarga extends Event {
+        @Label("Fase")
+        String fase;
+
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Líneas leídas")
+        @Description("Líneas del archivo base, contando las vacías")
+        long lineas;
+
+        @Label("Líneas inválidas")
+        @Description("Líneas y cambios salteados por no poder interpretarse")
+        int errores;
+
+        void terminar(String fase, String archivo, long lineas, int errores) {
+            end();
+            if (shouldCommit()) {
+                this.fase = fase;
+                this.archivo = archivo;
+                this.lineas = lineas;
+                this.errores = errores;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Una opción elegida en un menú de InterfazGimnasio. Es un evento
+     * instantáneo: atender la opción incluye los diálogos en los que el usuario
+     * carga los datos, así que su duración sería el tiempo del usuario; el
+     * trabajo que dispara se ve en los eventos Tarea.
+     */
+    @Name("gimnasio.AccionMenu")
+    @Label("Acción de menú")
+    @Category({ "Gimnasio", "Interfaz" })
+    @Description("Opción elegida en un menú; la duración del trabajo está en los eventos Tarea")
+    @StackTrace(false)
+    static class AccionMenu extends Event {
+        @Label("Menú")
+        String menu;
+
+        @Label("Acción")
+        String accion;
+
+        /** Graba la opción elegida, sin duración. */
+        static void registrar(String menu, String accion) {
+            AccionMenu evento = new AccionMenu();
+            if (evento.shouldCommit()) {
+                evento.menu = menu;
+                evento.accion = accion;
+                evento.commit();
+            }
+        }
+    }
+
+    /** Una tarea de TareasEnSegundoPlano, mientras corre fuera del hilo de Swing. */
+    @Name("gimnasio.Tarea")
+    @Label("Tarea en segundo plano")
+    @Category({ "Gimnasio", "Interfaz" })
+    @StackTrace(false)
+    static class Tarea extends Event {
+        @Label("Descripción")
+        String descripcion;
+
+        @Label("Exitosa")
+        boolean exitosa;
+
+        void terminar(String descripcion, boolean exitosa) {
+            end();
+            if (shouldCommit()) {
+                this.descripcion = descripcion;
+                this.exitosa = exitosa;
+                commit();
+            }
+        }
+    }
+
+    /** Bytes que ocupan las líneas en UTF-8, con su fin de línea, sin codificarlas. */
+    static long bytesUtf8(List<String> lineas) {
+        long bytes = 0;
+        int finDeLinea = System.lineSeparator().length();
+        for (String linea : lineas) {
+            bytes += finDeLinea;
+            for (int i = 0; i < linea.length(); i++) {
+                char c = linea.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    // el par sustituto completo ocupa 4 bytes
+                    bytes += 4;
+                    i++;
+                } else {
+                    bytes += 3;
+                }
+            }
+        }
+        return bytes;
+    }
+}
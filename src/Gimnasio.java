@@ -1,30 +1,119 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 /**
  * Clase principal del modelo que representa el gimnasio y gestiona a los
  * empleados, socios, clases, pagos y registros.
+ *
+ * El modelo admite uso concurrente (varias recepciones sobre el mismo
+ * gimnasio): las entidades están en colecciones concurrentes indexadas por su
+ * clave (ver ColeccionEntidades) y los índices también son concurrentes, de
+ * modo que las lecturas no bloquean y un alta o baja no copia la colección, y
+ * las operaciones compuestas (verificar y agregar, eliminar, pagar) toman el
+ * candado de la franja de su DNI u horario.
+ * Así operaciones sobre socios u horarios distintos corren en paralelo.
  */
 public class Gimnasio {
     // Constantes de configuración
     public static final String[] DIAS_SEMANA = { "Lunes", "Martes", "Miércoles", "Jueves", "Viernes", "Sábado",
             "Domingo" };
     public static final String[] TURNOS = { "Mañana", "Tarde", "Noche" };
+    // Casillas de la grilla semanal: una por cada combinación día x turno
+    static final int CASILLAS = DIAS_SEMANA.length * TURNOS.length;
+    private static final Map<String, Integer> CASILLA_POR_HORARIO = crearCasillasPorHorario();
     public static final String[] TIPOS_CLASE = { "Crossfit", "Funcional", "Aerobico", "Hyorx", "Musculacion", "Zumba" };
 
+    // Archivos de persistencia del historial financiero
+    static final String ARCHIVO_REGISTROS = "datos/registros.txt";
+    static final String ARCHIVO_CABECERA = "datos/gimnasio.txt";
+    // Archivos de entidades: base + delta de cambios pendientes de compactar
+    static final String ARCHIVO_SOCIOS = "datos/registrosSocios.txt";
+    static final String ARCHIVO_EMPLEADOS = "datos/registrosEmpleados.txt";
+    static final String ARCHIVO_CLASES = "datos/registrosClase.txt";
+    static final String ARCHIVO_INSCRIPCIONES = "datos/registrosInscripciones.txt";
+    static final int UMBRAL_COMPACTACION = 1000;
+    // Cantidad de franjas de candados para DNIs y horarios
+    private static final int FRANJAS = 64;
+
     // Datos del gimnasio
     private String nombre;
     private int CUIT;
     private String direccion;
     private String provincia;
-    List<Empleado> empleados;
-    List<Socio> socios;
-    List<Clase> clases;
+    ColeccionEntidades<Integer, Empleado> empleados;
+    ColeccionEntidades<Integer, Socio> socios;
+    ColeccionEntidades<Integer, Clase> clases;
     List<Registro> registros;
     CuentaBancaria cuenta;
     // Estructuras auxiliares para búsquedas rápidas
-    Map<Integer, Empleado> empleadosPorDni;
-    Map<Integer, Socio> sociosPorDni;
-    Map<String, Clase> clasesPorHorario;
+    MapaEnteros<Empleado> empleadosPorDni;
+    MapaEnteros<Socio> sociosPorDni;
+    AtomicReferenceArray<Clase> clasesPorCasilla;
+    IndiceVencimientos indiceVencimientos;
+    // Candados por franjas para las operaciones compuestas
+    private final Object[] candadosSocios = crearCandados();
+    private final Object[] candadosEmpleados = crearCandados();
+    private final Object[] candadosHorarios = crearCandados();
+    // Punto de control del historial que se guarda en la cabecera: id del último
+    // registro anexado, largo en bytes que tiene registros.txt con ese registro y
+    // saldo de la cuenta con el historial aplicado hasta él. Se protegen con el
+    // candado de registros
+    private int ultimoIdHistorial;
+    private long largoHistorial;
+    private long saldoHistorial;
+    // Punto de control leído de la cabecera al cargar (-1 si la cabecera no lo tiene)
+    private int ultimoIdCabecera = -1;
+    private long largoCabecera = -1;
+    // La carga recuperó movimientos posteriores a la cabecera o reparó el final
+    private boolean historialRecuperado;
+    // Persistencia incremental de cada archivo de entidades
+    PersistenciaIncremental persistenciaSocios;
+    PersistenciaIncremental persistenciaEmpleados;
+    PersistenciaIncremental persistenciaClases;
+    PersistenciaIncremental persistenciaInscripciones;
+    // Escritor asíncrono (null = las escrituras se hacen en el hilo que llama).
+    // Se lee una sola vez por operación: cerrar() lo pone en null mientras otros
+    // hilos escriben, y un escritor ya cerrado escribe en el hilo que llama
+    private volatile EscritorAsincrono escritor;
+    // Duración de cada fase de la última carga (ms)
+    private final Map<String, Long> tiemposCarga = new LinkedHashMap<>();
+
+    // Métricas (ver Metricas)
+    private static final Metricas.Temporizador TIEMPO_GUARDAR_SOCIOS = Metricas.temporizador("guardar.socios");
+    private static final Metricas.Temporizador TIEMPO_GUARDAR_EMPLEADOS = Metricas.temporizador("guardar.empleados");
+    private static final Metricas.Temporizador TIEMPO_GUARDAR_CLASES = Metricas.temporizador("guardar.clases");
+    private static final Metricas.Temporizador TIEMPO_GUARDAR_INSCRIPCIONES = Metricas
+            .temporizador("guardar.inscripciones");
+    private static final Metricas.Temporizador TIEMPO_GUARDAR_ESTADO = Metricas.temporizador("guardar.estadoCompleto");
+    private static final Metricas.Temporizador TIEMPO_GUARDAR_CABECERA = Metricas.temporizador("guardar.cabecera");
+    private static final Metricas.Temporizador TIEMPO_PAGO_SOCIO = Metricas.temporizador("pago.socio");
+    private static final Metricas.Contador PAGOS_SOCIO_RECHAZADOS = Metricas.contador("pago.socio.rechazados");
+    private static final Metricas.Temporizador TIEMPO_PAGO_SUELDO = Metricas.temporizador("pago.sueldo");
+    private static final Metricas.Contador PAGOS_SUELDO_RECHAZADOS = Metricas.contador("pago.sueldo.rechazados");
+    private static final Metricas.Temporizador TIEMPO_VENCEN_ENTRE = Metricas.temporizador("busqueda.vencenEntre");
+    // Las búsquedas por DNI y horario solo se cuentan: medir su tiempo costaría
+    // tanto como la búsqueda misma
+    private static final Metricas.Contador SOCIO_ENCONTRADO = Metricas.contador("busqueda.socio.encontrado");
+    private static final Metricas.Contador SOCIO_NO_ENCONTRADO = Metricas.contador("busqueda.socio.noEncontrado");
+    private static final Metricas.Contador EMPLEADO_ENCONTRADO = Metricas.contador("busqueda.empleado.encontrado");
+    private static final Metricas.Contador EMPLEADO_NO_ENCONTRADO = Metricas
+            .contador("busqueda.empleado.noEncontrado");
+    private static final Metricas.Contador BUSQUEDAS_HORARIO = Metricas.contador("busqueda.horario");
+    // Líneas salteadas al cargar por no tener un formato válido
+    private static final Metricas.Contador LINEAS_INVALIDAS = Metricas.contador("carga.lineasInvalidas");
 
     /**
      * Constructor de Gimnasio. Inicializa las estructuras de datos vacías.
@@ -34,13 +123,93 @@ public class Gimnasio {
         this.CUIT = CUIT;
         this.direccion = direccion;
         this.provincia = provincia;
-        this.empleados = new ArrayList<>();
-        this.socios = new ArrayList<>();
-        this.clases = new ArrayList<>();
-        this.registros = new ArrayList<>();
-        this.empleadosPorDni = new HashMap<>();
-        this.sociosPorDni = new HashMap<>();
-        this.clasesPorHorario = new HashMap<>();
+        this.empleados = new ColeccionEntidades<>(Empleado::getDni);
+        this.socios = new ColeccionEntidades<>(Socio::getDni);
+        this.clases = new ColeccionEntidades<>(Clase::getCasilla);
+        // El historial solo crece; se sincroniza sobre la propia lista
+        this.registros = Collections.synchronizedList(new ArrayList<>());
+        this.empleadosPorDni = new MapaEnteros<>();
+        this.sociosPorDni = new MapaEnteros<>();
+        this.clasesPorCasilla = new AtomicReferenceArray<>(CASILLAS);
+        this.indiceVencimientos = new IndiceVencimientos();
+        this.persistenciaSocios = crearPersistencia(ARCHIVO_SOCIOS);
+        this.persistenciaEmpleados = crearPersistencia(ARCHIVO_EMPLEADOS);
+        this.persistenciaClases = crearPersistencia(ARCHIVO_CLASES);
+        this.persistenciaInscripciones = crearPersistencia(ARCHIVO_INSCRIPCIONES);
+    }
+
+    private static Object[] crearCandados() {
+        Object[] candados = new Object[FRANJAS];
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new Object();
+        }
+        return candados;
+    }
+
+    /** Candado de la franja del socio con ese DNI. */
+    Object candadoSocio(int dni) {
+        return candadosSocios[Math.floorMod(dni, FRANJAS)];
+    }
+
+    /** Candado de la franja del empleado con ese DNI. */
+    Object candadoEmpleado(int dni) {
+        return candadosEmpleados[Math.floorMod(dni, FRANJAS)];
+    }
+
+    /**
+     * Ejecuta la acción con los candados de las franjas de todos esos empleados
+     * tomados, en orden de franja (así dos operaciones en lote no se bloquean
+     * entre sí en orden inverso).
+     */
+    <T> T conCandadosEmpleados(Collection<? extends Empleado> lote, Supplier<T> accion) {
+        boolean[] franjas = new boolean[FRANJAS];
+        for (Empleado e : lote) {
+            franjas[Math.floorMod(e.getDni(), FRANJAS)] = true;
+        }
+        return conCandados(candadosEmpleados, franjas, 0, accion);
+    }
+
+    private static <T> T conCandados(Object[] candados, boolean[] franjas, int desde,
+            Supplier<T> accion) {
+        for (int i = desde; i < franjas.length; i++) {
+            if (franjas[i]) {
+                synchronized (candados[i]) {
+                    return conCandados(candados, franjas, i + 1, accion);
+                }
+            }
+        }
+        return accion.get();
+    }
+
+    /** Candado de la casilla del horario (ver casilla()). */
+    Object candadoHorario(int casilla) {
+        return candadosHorarios[casilla % FRANJAS];
+    }
+
+    private static Map<String, Integer> crearCasillasPorHorario() {
+        Map<String, Integer> casillas = new HashMap<>();
+        for (int d = 0; d < DIAS_SEMANA.length; d++) {
+            for (int t = 0; t < TURNOS.length; t++) {
+                casillas.put(DIAS_SEMANA[d] + " - " + TURNOS[t], casilla(d, t));
+            }
+        }
+        return casillas;
+    }
+
+    /** Casilla de la grilla para el día y turno (índices en DIAS_SEMANA y TURNOS). */
+    static int casilla(int dia, int turno) {
+        return dia * TURNOS.length + turno;
+    }
+
+    /** Casilla de un horario "día - turno", o -1 si no corresponde a la grilla. */
+    static int casillaDeHorario(String horario) {
+        Integer casilla = (horario != null) ? CASILLA_POR_HORARIO.get(horario) : null;
+        return (casilla != null) ? casilla : -1;
+    }
+
+    private static PersistenciaIncremental crearPersistencia(String rutaBase) {
+        String rutaDelta = rutaBase.replace(".txt", ".delta");
+        return new PersistenciaIncremental(rutaBase, rutaDelta, UMBRAL_COMPACTACION);
     }
 
     // Métodos de gestión de entidades
@@ -69,6 +238,28 @@ public class Gimnasio {
         }
     }
 
+    /**
+     * Agrega varios socios de una vez (importación masiva) sin registrar un
+     * cambio por socio, así que quien lo llama debe guardar los socios al
+     * terminar. Retorna las posiciones dentro del lote de los socios que no se
+     * agregaron porque su DNI ya estaba registrado.
+     */
+    List<Integer> agregarSociosEnLote(List<Socio> lote) {
+        List<Integer> repetidos = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Socio s = lote.get(i);
+            synchronized (candadoSocio(s.getDni())) {
+                if (sociosPorDni.ponerSiAusente(s.getDni(), s) == null) {
+                    indiceVencimientos.agregar(s);
+                    socios.add(s);
+                } else {
+                    repetidos.add(i);
+                }
+            }
+        }
+        return repetidos;
+    }
+
     public void agregarClase(Clase c) {
         if (c != null) {
             c.agregarAlGimnasio(this);
@@ -81,42 +272,167 @@ public class Gimnasio {
         }
     }
 
+    /**
+     * Mueve la clase a otro horario: libera su casilla y ocupa la nueva, que debe
+     * estar libre. Las inscripciones se conservan y se reescriben con el nuevo
+     * horario. Retorna false si la clase no está en el gimnasio, el horario no
+     * corresponde a la grilla o la nueva casilla ya está ocupada.
+     */
+    public boolean cambiarHorarioClase(Clase c, String horario) {
+        int nueva = casillaDeHorario(horario);
+        if (c == null || nueva < 0) {
+            return false;
+        }
+        int anterior = c.getCasilla();
+        if (anterior < 0) {
+            return false;
+        }
+        // Los candados de las dos casillas se toman en orden de casilla
+        Object primero = candadoHorario(Math.min(anterior, nueva));
+        Object segundo = candadoHorario(Math.max(anterior, nueva));
+        synchronized (primero) {
+            synchronized (segundo) {
+                if (clasesPorCasilla.get(anterior) != c) {
+                    return false;
+                }
+                if (nueva != anterior && !clasesPorCasilla.compareAndSet(nueva, null, c)) {
+                    return false;
+                }
+                registrarBajaClase(c);
+                clases.remove(c);
+                c.cambiarHorario(horario);
+                clases.add(c);
+                if (nueva != anterior) {
+                    clasesPorCasilla.set(anterior, null);
+                }
+                registrarModificacionClase(c);
+            }
+        }
+        // Las líneas de inscripción llevan el horario: se compacta el archivo
+        guardarInscripciones();
+        return true;
+    }
+
+    // Inscripciones a clases
+
+    /** Inscribe al socio en la clase, o lo anota en la lista de espera si no hay cupo. */
+    public Clase.ResultadoInscripcion inscribirEnClase(Socio s, Clase c) {
+        if (c == null) {
+            return Clase.ResultadoInscripcion.RECHAZADO;
+        }
+        return c.inscribir(s, this);
+    }
+
+    /** Cancela la inscripción (o la espera) del socio en la clase. */
+    public boolean cancelarInscripcion(Socio s, Clase c) {
+        return c != null && c.cancelarInscripcion(s, this);
+    }
+
     // Métodos de pagos y transacciones financieras
 
     public boolean registrarPagoSueldo(Empleado e) {
         if (e == null || cuenta == null) {
             return false;
         }
-        return cuenta.registrarPagoSueldo(e, this);
+        long inicio = TIEMPO_PAGO_SUELDO.iniciar();
+        boolean pagado;
+        synchronized (candadoEmpleado(e.getDni())) {
+            pagado = cuenta.registrarPagoSueldo(e, this);
+        }
+        TIEMPO_PAGO_SUELDO.detener(inicio);
+        if (!pagado) {
+            PAGOS_SUELDO_RECHAZADOS.incrementar();
+        }
+        return pagado;
     }
 
     /**
      * Registra el pago de la cuota de un socio (extrae de la cuenta del socio y
-     * deposita en la del gimnasio).
+     * deposita en la del gimnasio) y guarda el socio con su nuevo vencimiento.
+     * El monto se expresa en centavos.
      */
-    public boolean registrarPagoSocio(Socio s, double monto) {
+    public boolean registrarPagoSocio(Socio s, long monto) {
         if (s == null || cuenta == null) {
             return false;
         }
-        return cuenta.registrarPagoSocio(s, monto, this);
+        long inicio = TIEMPO_PAGO_SOCIO.iniciar();
+        boolean pagado;
+        synchronized (candadoSocio(s.getDni())) {
+            pagado = cuenta.registrarPagoSocio(s, monto, this);
+            if (pagado) {
+                registrarModificacionSocio(s);
+            }
+        }
+        TIEMPO_PAGO_SOCIO.detener(inicio);
+        if (!pagado) {
+            PAGOS_SOCIO_RECHAZADOS.incrementar();
+        }
+        return pagado;
     }
 
     // Métodos de búsqueda
 
     /** Busca y retorna un socio por DNI, o null si no existe. */
     public Socio buscarSocioPorDni(int dni) {
-        return sociosPorDni.get(dni);
+        Socio s = sociosPorDni.obtener(dni);
+        (s != null ? SOCIO_ENCONTRADO : SOCIO_NO_ENCONTRADO).incrementar();
+        return s;
+    }
+
+    /**
+     * Socios cuyo plan vence entre desde (inclusive) y hasta (exclusive),
+     * ordenados por vencimiento. Usa el índice de vencimientos, no recorre
+     * todos los socios.
+     */
+    public List<Socio> getSociosQueVencenEntre(Date desde, Date hasta) {
+        long inicio = TIEMPO_VENCEN_ENTRE.iniciar();
+        try {
+            return indiceVencimientos.vencenEntre(desde.getTime(), hasta.getTime());
+        } finally {
+            TIEMPO_VENCEN_ENTRE.detener(inicio);
+        }
+    }
+
+    /** Cantidad de socios con el plan vigente en este momento. */
+    public int contarSociosActivos() {
+        return indiceVencimientos.contarActivos(System.currentTimeMillis());
+    }
+
+    /** Cantidad de socios con el plan vencido en este momento. */
+    public int contarSociosVencidos() {
+        return indiceVencimientos.contarVencidos(System.currentTimeMillis());
     }
 
     /** Busca y retorna un empleado por DNI, o null si no existe. */
     public Empleado buscarEmpleadoPorDni(int dni) {
-        return empleadosPorDni.get(dni);
+        Empleado e = empleadosPorDni.obtener(dni);
+        (e != null ? EMPLEADO_ENCONTRADO : EMPLEADO_NO_ENCONTRADO).incrementar();
+        return e;
     }
 
     /** Obtiene la clase asignada en un determinado día y turno (horario). */
     public Clase getClaseEnHorario(String dia, String turno) {
-        String clave = dia + " - " + turno;
-        return clasesPorHorario.get(clave);
+        int d = indiceDe(DIAS_SEMANA, dia);
+        int t = indiceDe(TURNOS, turno);
+        return (d >= 0 && t >= 0) ? getClaseEnHorario(d, t) : null;
+    }
+
+    /**
+     * Obtiene la clase del día y turno dados por su posición en DIAS_SEMANA y
+     * TURNOS (lectura directa de la grilla).
+     */
+    public Clase getClaseEnHorario(int dia, int turno) {
+        BUSQUEDAS_HORARIO.incrementar();
+        return clasesPorCasilla.get(casilla(dia, turno));
+    }
+
+    private static int indiceDe(String[] valores, String valor) {
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i].equals(valor)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     // Getters y Setters
@@ -153,16 +469,31 @@ public class Gimnasio {
         this.provincia = provincia;
     }
 
+    /** Copia de los empleados, en orden de alta. */
     public List<Empleado> getEmpleados() {
-        return Collections.unmodifiableList(empleados);
+        return empleados.instantanea();
     }
 
+    /** Copia de los socios, en orden de alta. */
     public List<Socio> getSocios() {
-        return Collections.unmodifiableList(socios);
+        return socios.instantanea();
     }
 
+    /** Copia de las clases, en orden de alta. */
     public List<Clase> getClases() {
-        return Collections.unmodifiableList(clases);
+        return clases.instantanea();
+    }
+
+    public int getCantidadEmpleados() {
+        return empleados.size();
+    }
+
+    public int getCantidadSocios() {
+        return socios.size();
+    }
+
+    public int getCantidadClases() {
+        return clases.size();
     }
 
     public List<Registro> getRegistros() {
@@ -174,7 +505,10 @@ public class Gimnasio {
     }
 
     public void setCuenta(CuentaBancaria cuenta) {
-        this.cuenta = cuenta;
+        synchronized (registros) {
+            this.cuenta = cuenta;
+            this.saldoHistorial = (cuenta != null) ? cuenta.getSaldo() : 0;
+        }
     }
 
     @Override
@@ -192,227 +526,919 @@ public class Gimnasio {
     }
 
     /**
-     * Carga los datos del sistema.
-     * 1. Carga Empleados (estado).
-     * 2. Carga Socios (estado).
-     * 3. Carga Clases (estado).
-     * 4. Carga Registros Financieros (historial).
+     * Carga los datos del sistema. Los archivos independientes se cargan en
+     * paralelo, así el tiempo total es el de la fase más larga y no la suma:
+     * 1. Empleados (estado) y luego Clases, que necesitan empleadosPorDni.
+     * 2. Socios (estado), en paralelo con 1.
+     * 3. Registros Financieros (historial), en paralelo con 1 y 2.
+     * 4. Inscripciones a clases, al final porque vinculan socios y clases.
+     * Si hay una instantánea binaria vigente (ver InstantaneaGimnasio) se usa
+     * esa en lugar de los archivos de texto.
+     * El tiempo de cada fase queda disponible en getTiemposCarga().
      */
     public void cargarDatos() {
-        // 1. Cargar Empleados
-        cargarEmpleados();
-        // 2. Cargar Socios
-        cargarSocios();
-        // 3. Cargar Clases
-        cargarClases();
-        // 4. Cargar Registros Financieros
-        cargarRegistrosFinancieros();
+        long inicio = System.nanoTime();
+        EventosGimnasio.FaseCarga evento = new EventosGimnasio.FaseCarga();
+        evento.begin();
+        if (InstantaneaGimnasio.cargar(this)) {
+            evento.terminar("instantanea", InstantaneaGimnasio.ARCHIVO_INSTANTANEA, 0, 0);
+            // Los deltas ya están incluidos; solo se recupera cuántos hay pendientes
+            persistenciaEmpleados.leerCambios();
+            persistenciaSocios.leerCambios();
+            persistenciaClases.leerCambios();
+            long nanosInscripciones = medir(this::cargarInscripciones);
+            iniciarPuntoDeControl();
+            tiemposCarga.clear();
+            registrarFaseCarga("instantanea", System.nanoTime() - inicio - nanosInscripciones);
+            registrarFaseCarga("inscripciones", nanosInscripciones);
+            registrarFaseCarga("total", System.nanoTime() - inicio);
+            return;
+        }
+        long[] nanos = new long[4];
+        ExecutorService ejecutor = Executors.newFixedThreadPool(3);
+        try {
+            CompletableFuture<Void> personal = CompletableFuture.runAsync(() -> {
+                nanos[0] = medir(this::cargarEmpleados);
+                nanos[1] = medir(this::cargarClases);
+            }, ejecutor);
+            CompletableFuture<Void> sociosCargados = CompletableFuture
+                    .runAsync(() -> nanos[2] = medir(this::cargarSocios), ejecutor);
+            CompletableFuture<Void> historial = CompletableFuture
+                    .runAsync(() -> nanos[3] = medir(this::cargarRegistrosFinancieros), ejecutor);
+            // join() además asegura que lo cargado por cada hilo sea visible aquí
+            CompletableFuture.allOf(personal, sociosCargados, historial).join();
+        } catch (CompletionException e) {
+            System.err.println("Error cargando datos: " + e.getCause());
+        } finally {
+            ejecutor.shutdown();
+        }
+        if (this.cuenta == null) {
+            this.cuenta = new CuentaBancaria("001", 0, this.nombre);
+        }
+        long nanosInscripciones = medir(this::cargarInscripciones);
+        iniciarPuntoDeControl();
+        if (historialRecuperado) {
+            guardarCabecera();
+        }
+
+        tiemposCarga.clear();
+        registrarFaseCarga("empleados", nanos[0]);
+        registrarFaseCarga("clases", nanos[1]);
+        registrarFaseCarga("socios", nanos[2]);
+        registrarFaseCarga("registros", nanos[3]);
+        registrarFaseCarga("inscripciones", nanosInscripciones);
+        registrarFaseCarga("total", System.nanoTime() - inicio);
+    }
+
+    /** Toma como punto de control el historial y el saldo recién cargados. */
+    private void iniciarPuntoDeControl() {
+        synchronized (registros) {
+            ultimoIdHistorial = registros.isEmpty() ? 0 : registros.get(registros.size() - 1).getIdRegistro();
+            largoHistorial = new File(ARCHIVO_REGISTROS).length();
+            saldoHistorial = cuenta.getSaldo();
+        }
+    }
+
+    /** Anota la duración de la fase en getTiemposCarga() y en las métricas ("carga.fase"). */
+    private void registrarFaseCarga(String fase, long nanos) {
+        tiemposCarga.put(fase, nanos / 1_000_000);
+        Metricas.temporizador("carga." + fase).registrar(nanos);
+    }
+
+    private static long medir(Runnable fase) {
+        long inicio = System.nanoTime();
+        fase.run();
+        return System.nanoTime() - inicio;
+    }
+
+    /** Duración en milisegundos de cada fase de la última carga de datos. */
+    public Map<String, Long> getTiemposCarga() {
+        return Collections.unmodifiableMap(tiemposCarga);
     }
 
+    // Los archivos se recorren con LectorDelimitado (lectura por bloques, sin
+    // String.split por línea). Una línea inválida se informa y se saltea.
+
     private void cargarEmpleados() {
-        java.io.File archivo = new java.io.File("datos/registrosEmpleados.txt");
+        EventosGimnasio.FaseCarga evento = new EventosGimnasio.FaseCarga();
+        evento.begin();
+        long lineas = 0;
+        int invalidas = 0;
+        File archivo = new File(ARCHIVO_EMPLEADOS);
         if (archivo.exists()) {
-            try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader(archivo))) {
-                String linea;
-                while ((linea = br.readLine()) != null) {
-                    if (linea.trim().isEmpty())
-                        continue;
-                    Empleado e = Empleado.fromCSV(linea);
-                    if (e != null) {
-                        empleados.add(e);
-                        empleadosPorDni.put(e.getDni(), e);
+            List<Empleado> cargados = new ArrayList<>();
+            try (LectorDelimitado lector = new LectorDelimitado(ARCHIVO_EMPLEADOS, ';')) {
+                while (lector.siguienteLinea()) {
+                    try {
+                        Empleado e = Empleado.fromLector(lector);
+                        if (e != null) {
+                            cargados.add(e);
+                            empleadosPorDni.poner(e.getDni(), e);
+                        }
+                    } catch (RuntimeException ex) {
+                        LINEAS_INVALIDAS.incrementar();
+                        invalidas++;
+                        System.err.println("Línea de empleado inválida: " + lector.lineaActual());
                     }
                 }
+                lineas = lector.numeroLinea();
             } catch (Exception e) {
                 System.err.println("Error cargando empleados: " + e.getMessage());
             }
+            empleados.addAll(cargados);
         }
+        invalidas += aplicarCambiosEmpleados();
+        evento.terminar("empleados", ARCHIVO_EMPLEADOS, lineas, invalidas);
     }
 
     private void cargarSocios() {
-        java.io.File archivo = new java.io.File("datos/registrosSocios.txt");
+        EventosGimnasio.FaseCarga evento = new EventosGimnasio.FaseCarga();
+        evento.begin();
+        long lineas = 0;
+        int invalidas = 0;
+        File archivo = new File(ARCHIVO_SOCIOS);
         if (archivo.exists()) {
-            try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader(archivo))) {
-                String linea;
-                while ((linea = br.readLine()) != null) {
-                    if (linea.trim().isEmpty())
-                        continue;
-                    Socio s = Socio.fromCSV(linea);
-                    if (s != null) {
-                        socios.add(s);
-                        sociosPorDni.put(s.getDni(), s);
+            List<Socio> cargados = new ArrayList<>();
+            try (LectorDelimitado lector = new LectorDelimitado(ARCHIVO_SOCIOS, ';')) {
+                while (lector.siguienteLinea()) {
+                    try {
+                        Socio s = Socio.fromLector(lector);
+                        if (s != null) {
+                            cargados.add(s);
+                            sociosPorDni.poner(s.getDni(), s);
+                        }
+                    } catch (RuntimeException ex) {
+                        LINEAS_INVALIDAS.incrementar();
+                        invalidas++;
+                        System.err.println("Línea de socio inválida: " + lector.lineaActual());
                     }
                 }
+                lineas = lector.numeroLinea();
             } catch (Exception e) {
                 System.err.println("Error cargando socios: " + e.getMessage());
             }
+            socios.addAll(cargados);
         }
+        invalidas += aplicarCambiosSocios();
+        evento.terminar("socios", ARCHIVO_SOCIOS, lineas, invalidas);
     }
 
     private void cargarClases() {
-        java.io.File archivo = new java.io.File("datos/registrosClase.txt");
+        EventosGimnasio.FaseCarga evento = new EventosGimnasio.FaseCarga();
+        evento.begin();
+        long lineas = 0;
+        int invalidas = 0;
+        File archivo = new File(ARCHIVO_CLASES);
         if (archivo.exists()) {
-            try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader(archivo))) {
-                String linea;
-                while ((linea = br.readLine()) != null) {
-                    if (linea.trim().isEmpty())
-                        continue;
-                    Clase c = Clase.fromCSV(linea, empleadosPorDni);
-                    if (c != null) {
-                        clases.add(c);
-                        clasesPorHorario.put(c.getHorario(), c);
+            List<Clase> cargadas = new ArrayList<>();
+            try (LectorDelimitado lector = new LectorDelimitado(ARCHIVO_CLASES, ';')) {
+                while (lector.siguienteLinea()) {
+                    try {
+                        Clase c = Clase.fromLector(lector, empleadosPorDni);
+                        if (c != null && c.getCasilla() >= 0) {
+                            cargadas.add(c);
+                            clasesPorCasilla.set(c.getCasilla(), c);
+                            c.enGrilla = true;
+                        } else if (c != null) {
+                            LINEAS_INVALIDAS.incrementar();
+                            invalidas++;
+                            System.err.println("Horario de clase inválido: " + lector.lineaActual());
+                        }
+                    } catch (RuntimeException ex) {
+                        LINEAS_INVALIDAS.incrementar();
+                        invalidas++;
+                        System.err.println("Línea de clase inválida: " + lector.lineaActual());
                     }
                 }
+                lineas = lector.numeroLinea();
             } catch (Exception e) {
                 System.err.println("Error cargando clases: " + e.getMessage());
             }
+            clases.addAll(cargadas);
         }
+        invalidas += aplicarCambiosClases();
+        evento.terminar("clases", ARCHIVO_CLASES, lineas, invalidas);
+    }
+
+    // Aplicación de los deltas pendientes sobre lo cargado desde los archivos base.
+    // Se usa un LinkedHashMap para respetar el orden original: las modificaciones
+    // conservan la posición de la entidad y las altas quedan al final.
+
+    private int aplicarCambiosEmpleados() {
+        List<String[]> cambios = persistenciaEmpleados.leerCambios();
+        if (cambios.isEmpty())
+            return 0;
+        int invalidas = 0;
+        Map<Integer, Empleado> vigentes = new LinkedHashMap<>();
+        for (Empleado e : empleados) {
+            vigentes.put(e.getDni(), e);
+        }
+        for (String[] cambio : cambios) {
+            try {
+                if (PersistenciaIncremental.esBaja(cambio)) {
+                    vigentes.remove(Integer.parseInt(cambio[1]));
+                } else {
+                    Empleado e = Empleado.fromCSV(cambio[1]);
+                    if (e != null) {
+                        vigentes.put(e.getDni(), e);
+                    }
+                }
+            } catch (Exception ex) {
+                LINEAS_INVALIDAS.incrementar();
+                invalidas++;
+                System.err.println("Cambio de empleado inválido: " + cambio[1]);
+            }
+        }
+        empleados.clear();
+        empleados.addAll(vigentes.values());
+        empleadosPorDni.limpiar();
+        for (Empleado e : vigentes.values()) {
+            empleadosPorDni.poner(e.getDni(), e);
+        }
+        return invalidas;
+    }
+
+    private int aplicarCambiosSocios() {
+        List<String[]> cambios = persistenciaSocios.leerCambios();
+        if (cambios.isEmpty()) {
+            indiceVencimientos.reconstruir(socios);
+            return 0;
+        }
+        int invalidas = 0;
+        Map<Integer, Socio> vigentes = new LinkedHashMap<>();
+        for (Socio s : socios) {
+            vigentes.put(s.getDni(), s);
+        }
+        for (String[] cambio : cambios) {
+            try {
+                if (PersistenciaIncremental.esBaja(cambio)) {
+                    vigentes.remove(Integer.parseInt(cambio[1]));
+                } else {
+                    Socio s = Socio.fromCSV(cambio[1]);
+                    if (s != null) {
+                        vigentes.put(s.getDni(), s);
+                    }
+                }
+            } catch (Exception ex) {
+                LINEAS_INVALIDAS.incrementar();
+                invalidas++;
+                System.err.println("Cambio de socio inválido: " + cambio[1]);
+            }
+        }
+        socios.clear();
+        socios.addAll(vigentes.values());
+        sociosPorDni.limpiar();
+        for (Socio s : vigentes.values()) {
+            sociosPorDni.poner(s.getDni(), s);
+        }
+        indiceVencimientos.reconstruir(vigentes.values());
+        return invalidas;
+    }
+
+    /**
+     * Carga las inscripciones (base + delta) y las vuelve a vincular con sus
+     * clases y socios. Las que apuntan a una clase o socio que ya no existe se
+     * descartan. La instantánea no las incluye, así que se leen siempre de acá.
+     */
+    private void cargarInscripciones() {
+        EventosGimnasio.FaseCarga evento = new EventosGimnasio.FaseCarga();
+        evento.begin();
+        long lineas = 0;
+        int invalidas = 0;
+        // clave horario;dni -> {horario, dni, estado}, en el orden del archivo
+        Map<String, String[]> vigentes = new LinkedHashMap<>();
+        File archivo = new File(ARCHIVO_INSCRIPCIONES);
+        if (archivo.exists()) {
+            try (LectorDelimitado lector = new LectorDelimitado(ARCHIVO_INSCRIPCIONES, ';')) {
+                while (lector.siguienteLinea()) {
+                    String linea = lector.lineaActual();
+                    int separador = linea.lastIndexOf(';');
+                    if (separador > 0) {
+                        vigentes.put(linea.substring(0, separador), linea.split(";"));
+                    }
+                }
+                lineas = lector.numeroLinea();
+            } catch (Exception e) {
+                System.err.println("Error cargando inscripciones: " + e.getMessage());
+            }
+        }
+        for (String[] cambio : persistenciaInscripciones.leerCambios()) {
+            if (PersistenciaIncremental.esBaja(cambio)) {
+                vigentes.remove(cambio[1]);
+            } else if (cambio[1].lastIndexOf(';') > 0) {
+                // Un cambio de estado (espera -> inscripto) pasa al final, como en la clase
+                String clave = cambio[1].substring(0, cambio[1].lastIndexOf(';'));
+                vigentes.remove(clave);
+                vigentes.put(clave, cambio[1].split(";"));
+            }
+        }
+        for (String[] datos : vigentes.values()) {
+            try {
+                int casilla = casillaDeHorario(datos[0]);
+                Clase c = casilla >= 0 ? clasesPorCasilla.get(casilla) : null;
+                Socio s = sociosPorDni.obtener(Integer.parseInt(datos[1]));
+                if (c != null && s != null) {
+                    c.restaurarInscripcion(s, "ESPERA".equals(datos[2]));
+                }
+            } catch (RuntimeException ex) {
+                LINEAS_INVALIDAS.incrementar();
+                invalidas++;
+                System.err.println("Inscripción inválida: " + String.join(";", datos));
+            }
+        }
+        evento.terminar("inscripciones", ARCHIVO_INSCRIPCIONES, lineas, invalidas);
+    }
+
+    private int aplicarCambiosClases() {
+        List<String[]> cambios = persistenciaClases.leerCambios();
+        if (cambios.isEmpty())
+            return 0;
+        int invalidas = 0;
+        Map<String, Clase> vigentes = new LinkedHashMap<>();
+        for (Clase c : clases) {
+            vigentes.put(c.getHorario(), c);
+        }
+        for (String[] cambio : cambios) {
+            Clase anterior;
+            if (PersistenciaIncremental.esBaja(cambio)) {
+                anterior = vigentes.remove(cambio[1]);
+            } else {
+                Clase c;
+                try {
+                    c = Clase.fromCSV(cambio[1], empleadosPorDni);
+                } catch (Exception ex) {
+                    LINEAS_INVALIDAS.incrementar();
+                    invalidas++;
+                    System.err.println("Cambio de clase inválido: " + cambio[1]);
+                    continue;
+                }
+                if (c == null || c.getCasilla() < 0)
+                    continue;
+                anterior = vigentes.put(c.getHorario(), c);
+            }
+            // La clase reemplazada o eliminada deja de estar asignada a su entrenador
+            if (anterior != null && anterior.getEntrenador() != null) {
+                anterior.getEntrenador().desasignarClase(anterior);
+            }
+        }
+        clases.clear();
+        clases.addAll(vigentes.values());
+        for (int i = 0; i < CASILLAS; i++) {
+            clasesPorCasilla.set(i, null);
+        }
+        for (Clase c : vigentes.values()) {
+            clasesPorCasilla.set(c.getCasilla(), c);
+            c.enGrilla = true;
+        }
+        return invalidas;
     }
 
     private void cargarRegistrosFinancieros() {
-        java.io.File archivo = new java.io.File("datos/registros.txt");
+        EventosGimnasio.FaseCarga evento = new EventosGimnasio.FaseCarga();
+        evento.begin();
+        long lineas = 0;
+        int invalidas = 0;
+        File archivo = new File(ARCHIVO_REGISTROS);
+        // La cabecera (datos del gimnasio y saldo) vive en su propio archivo; si no
+        // existe se acepta el formato anterior con la cabecera en registros.txt
+        boolean cabeceraCargada = cargarCabecera();
         if (!archivo.exists()) {
-            this.cuenta = new CuentaBancaria("001", 0, this.nombre);
+            if (this.cuenta == null) {
+                this.cuenta = new CuentaBancaria("001", 0, this.nombre);
+            }
+            evento.terminar("registros", ARCHIVO_REGISTROS, 0, 0);
             return;
         }
 
-        try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader(archivo))) {
-            String linea;
-            boolean primeraLinea = true;
-            while ((linea = br.readLine()) != null) {
-                if (linea.trim().isEmpty())
-                    continue;
-
-                if (primeraLinea) {
-                    if (linea.startsWith("GIMNASIO|")) {
-                        String[] partes = linea.split("\\|");
-                        if (partes.length >= 7) {
-                            this.nombre = partes[1];
-                            this.CUIT = Integer.parseInt(partes[2]);
-                            this.direccion = partes[3];
-                            this.provincia = partes[4];
-                            String nroCuenta = partes[5];
-                            double saldo = Double.parseDouble(partes[6]);
-                            this.cuenta = new CuentaBancaria(nroCuenta, saldo, this.nombre);
+        // Movimientos anexados después del punto de control de la cabecera (la
+        // escritura se cortó antes de guardarla): su efecto no está en el saldo
+        int recuperados = 0;
+        long saldoRecuperado = 0;
+        try {
+            if (repararFinalHistorial(archivo)) {
+                invalidas++;
+                historialRecuperado = true;
+            }
+            try (LectorDelimitado lector = new LectorDelimitado(ARCHIVO_REGISTROS, '|')) {
+                while (lector.siguienteLinea()) {
+                    if (lector.empiezaCon("GIMNASIO|")) {
+                        if (!cabeceraCargada) {
+                            procesarCabecera(lector.lineaActual());
+                            cabeceraCargada = true;
                         }
-                        primeraLinea = false;
                         continue;
                     }
-                    primeraLinea = false;
+
+                    // Procesar solo registros financieros para reconstruir saldo o historial
+                    if (!procesarRegistroFinanciero(lector)) {
+                        invalidas++;
+                        continue;
+                    }
+                    Registro r = registros.get(registros.size() - 1);
+                    if (ultimoIdCabecera >= 0 && r.getIdRegistro() > ultimoIdCabecera) {
+                        recuperados++;
+                        saldoRecuperado += CuentaBancaria.clasificar(r.getTipo()) * r.getMonto();
+                    }
                 }
+                lineas = lector.numeroLinea();
+            }
+        } catch (Exception e) {
+            System.err.println("Error cargando registros financieros: " + e.getMessage());
+        }
+        if (this.cuenta == null) {
+            this.cuenta = new CuentaBancaria("001", 0, this.nombre);
+        }
+        if (recuperados > 0) {
+            this.cuenta.recuperarSaldo(saldoRecuperado);
+            historialRecuperado = true;
+            System.err.println("Historial: se recuperaron " + recuperados
+                    + " movimientos posteriores a la cabecera (registro " + ultimoIdCabecera + ")");
+        }
+        int ultimoCargado = registros.isEmpty() ? 0 : registros.get(registros.size() - 1).getIdRegistro();
+        if (ultimoIdCabecera > ultimoCargado) {
+            System.err.println("Historial: la cabecera llega al registro " + ultimoIdCabecera
+                    + " pero registros.txt termina en el " + ultimoCargado);
+        }
+        evento.terminar("registros", ARCHIVO_REGISTROS, lineas, invalidas);
+    }
 
-                // Procesar solo registros financieros para reconstruir saldo o historial
-                procesarRegistroFinanciero(linea);
+    /**
+     * Si la escritura se cortó a mitad de un anexado, la última línea de
+     * registros.txt queda sin terminar y el próximo anexado se pegaría a ella.
+     * Si esa línea está después del punto de control de la cabecera se
+     * descarta (el movimiento nunca llegó a guardarse del todo); si no, o si la
+     * cabecera no tiene punto de control, se termina la línea para que la
+     * lectura la trate como cualquier otra. Retorna true si hubo que reparar.
+     */
+    private boolean repararFinalHistorial(File archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long largo = canal.size();
+            // Busca hacia atrás el comienzo de la última línea
+            long inicioLinea = 0;
+            ByteBuffer bloque = ByteBuffer.allocate(8192);
+            long fin = largo;
+            buscar:
+            while (fin > 0) {
+                int n = (int) Math.min(bloque.capacity(), fin);
+                long desde = fin - n;
+                bloque.clear().limit(n);
+                while (bloque.hasRemaining()) {
+                    if (canal.read(bloque, desde + bloque.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int i = n - 1; i >= 0; i--) {
+                    if (bloque.get(i) == '\n') {
+                        inicioLinea = desde + i + 1;
+                        break buscar;
+                    }
+                }
+                fin = desde;
             }
-            if (this.cuenta == null) {
-                this.cuenta = new CuentaBancaria("001", 0, this.nombre);
+            if (inicioLinea == largo) {
+                return false;
+            }
+            if (largoCabecera >= 0 && inicioLinea >= largoCabecera) {
+                canal.truncate(inicioLinea);
+                System.err.println("Historial: se descartó una línea incompleta al final de registros.txt");
+            } else {
+                canal.write(ByteBuffer.wrap(System.lineSeparator().getBytes(StandardCharsets.UTF_8)), largo);
+                System.err.println("Historial: se terminó una línea incompleta al final de registros.txt");
             }
+            return true;
+        }
+    }
+
+    private boolean cargarCabecera() {
+        File archivo = new File(ARCHIVO_CABECERA);
+        if (!archivo.exists()) {
+            return false;
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(archivo, StandardCharsets.UTF_8))) {
+            String linea = br.readLine();
+            return linea != null && procesarCabecera(linea);
         } catch (Exception e) {
-            System.err.println("Error cargando registros financieros: " + e.getMessage());
+            System.err.println("Error cargando cabecera: " + e.getMessage());
+            return false;
         }
     }
 
-    private void procesarRegistroFinanciero(String linea) {
+    private boolean procesarCabecera(String linea) {
+        String[] partes = linea.split("\\|");
+        if (!linea.startsWith("GIMNASIO|") || partes.length < 7) {
+            return false;
+        }
+        this.nombre = partes[1];
+        this.CUIT = Integer.parseInt(partes[2]);
+        this.direccion = partes[3];
+        this.provincia = partes[4];
+        String nroCuenta = partes[5];
+        long saldo = Dinero.desdeTexto(partes[6]);
+        this.cuenta = new CuentaBancaria(nroCuenta, saldo, this.nombre);
+        // Punto de control del historial (las cabeceras anteriores no lo tienen)
+        if (partes.length >= 9) {
+            this.ultimoIdCabecera = Integer.parseInt(partes[7]);
+            this.largoCabecera = Long.parseLong(partes[8]);
+        }
+        return true;
+    }
+
+    /** Retorna false si la línea no se pudo interpretar y se salteó. */
+    private boolean procesarRegistroFinanciero(LectorDelimitado lector) {
         try {
-            String[] partes = linea.split("\\|");
-            if (partes.length < 6)
-                return;
+            if (lector.cantidadCampos() < 6) {
+                LINEAS_INVALIDAS.incrementar();
+                return false;
+            }
 
-            int id = Integer.parseInt(partes[0]);
-            String tipo = partes[2];
-            String desc = partes[3];
-            double monto = Double.parseDouble(partes[4]);
-            // String datosExtra = partes[5]; // No necesitamos datos extra para el saldo
-            // global por ahora
+            int id = lector.campoEntero(0);
+            Date fecha = new Date(lector.campoFechaHora(1));
+            String tipo = leerTipoRegistro(lector, 2);
+            String desc = lector.campoTexto(3);
+            long monto = lector.campoCentavos(4);
+            // El campo 5 (datos extra) no se necesita para el saldo global por ahora
 
             // Crear registro en memoria (solo para historial visual si se desea)
-            java.util.Date fecha = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm:ss").parse(partes[1]);
             Registro reg = new Registro(id, fecha, tipo, desc, monto, null, null, null);
             registros.add(reg);
 
-            // Actualizar cuenta si es necesario (aunque el saldo ya viene del header,
-            // si quisiéramos recalcular podríamos hacerlo aquí, pero confiamos en el header
-            // por ahora
-            // o solo agregamos el movimiento a la lista de la cuenta sin afectar saldo si
-            // ya está seteado)
+            // El saldo viene de la cabecera (ver cargarRegistrosFinancieros)
             if (this.cuenta != null) {
                 this.cuenta.agregarMovimiento(reg);
             }
+            return true;
 
         } catch (Exception e) {
             // Ignorar errores de parseo en registros viejos
+            LINEAS_INVALIDAS.incrementar();
+            return false;
         }
     }
 
+    /** Los tipos habituales se comparan en el buffer para no crear un String por línea. */
+    private static String leerTipoRegistro(LectorDelimitado lector, int campo) {
+        if (lector.campoEs(campo, "HABER"))
+            return "HABER";
+        if (lector.campoEs(campo, "DEBE"))
+            return "DEBE";
+        return lector.campoTexto(campo);
+    }
+
+    /**
+     * Guarda el archivo completo de socios (compactación): reescribe la base con
+     * el estado actual y descarta los cambios incrementales pendientes.
+     */
     public void guardarSocios() {
-        new java.io.File("datos").mkdirs();
-        try (java.io.PrintWriter pw = new java.io.PrintWriter(new java.io.FileWriter("datos/registrosSocios.txt"))) {
+        long inicio = TIEMPO_GUARDAR_SOCIOS.iniciar();
+        EventosGimnasio.Guardado evento = new EventosGimnasio.Guardado();
+        evento.begin();
+        // Se toma el estado y se compacta bajo el candado de la persistencia, para
+        // que ningún cambio anexado entre medio quede afuera de la nueva base
+        synchronized (persistenciaSocios) {
+            List<String> lineas = new ArrayList<>(socios.size());
             for (Socio s : socios) {
-                pw.println(s.toCSV());
+                lineas.add(s.toCSV());
             }
-        } catch (Exception e) {
-            System.err.println("Error guardando socios: " + e.getMessage());
+            persistenciaSocios.compactar(lineas);
+            evento.terminar("guardarSocios", ARCHIVO_SOCIOS, lineas);
         }
+        TIEMPO_GUARDAR_SOCIOS.detener(inicio);
     }
 
+    /** Guarda el archivo completo de empleados (compactación). */
     public void guardarEmpleados() {
-        new java.io.File("datos").mkdirs();
-        try (java.io.PrintWriter pw = new java.io.PrintWriter(new java.io.FileWriter("datos/registrosEmpleados.txt"))) {
+        long inicio = TIEMPO_GUARDAR_EMPLEADOS.iniciar();
+        EventosGimnasio.Guardado evento = new EventosGimnasio.Guardado();
+        evento.begin();
+        // Se toma el estado y se compacta bajo el candado de la persistencia, para
+        // que ningún cambio anexado entre medio quede afuera de la nueva base
+        synchronized (persistenciaEmpleados) {
+            List<String> lineas = new ArrayList<>(empleados.size());
             for (Empleado e : empleados) {
-                pw.println(e.toCSV());
+                lineas.add(e.toCSV());
             }
-        } catch (Exception e) {
-            System.err.println("Error guardando empleados: " + e.getMessage());
+            persistenciaEmpleados.compactar(lineas);
+            evento.terminar("guardarEmpleados", ARCHIVO_EMPLEADOS, lineas);
         }
+        TIEMPO_GUARDAR_EMPLEADOS.detener(inicio);
     }
 
+    /** Guarda el archivo completo de clases (compactación). */
     public void guardarClases() {
-        new java.io.File("datos").mkdirs();
-        try (java.io.PrintWriter pw = new java.io.PrintWriter(new java.io.FileWriter("datos/registrosClase.txt"))) {
+        long inicio = TIEMPO_GUARDAR_CLASES.iniciar();
+        EventosGimnasio.Guardado evento = new EventosGimnasio.Guardado();
+        evento.begin();
+        // Se toma el estado y se compacta bajo el candado de la persistencia, para
+        // que ningún cambio anexado entre medio quede afuera de la nueva base
+        synchronized (persistenciaClases) {
+            List<String> lineas = new ArrayList<>(clases.size());
             for (Clase c : clases) {
-                pw.println(c.toCSV());
+                lineas.add(c.toCSV());
             }
-        } catch (Exception e) {
-            System.err.println("Error guardando clases: " + e.getMessage());
+            persistenciaClases.compactar(lineas);
+            evento.terminar("guardarClases", ARCHIVO_CLASES, lineas);
+        }
+        TIEMPO_GUARDAR_CLASES.detener(inicio);
+    }
+
+    /** Guarda el archivo completo de inscripciones (compactación). */
+    public void guardarInscripciones() {
+        long inicio = TIEMPO_GUARDAR_INSCRIPCIONES.iniciar();
+        EventosGimnasio.Guardado evento = new EventosGimnasio.Guardado();
+        evento.begin();
+        // Los cambios de una clase se registran bajo el candado de la clase y luego
+        // toman el de la persistencia; acá no se toman candados de clases (el
+        // estado se lee sin candado) para no invertir ese orden
+        synchronized (persistenciaInscripciones) {
+            List<String> lineas = new ArrayList<>();
+            for (Clase c : clases) {
+                c.agregarLineasInscripcion(lineas);
+            }
+            persistenciaInscripciones.compactar(lineas);
+            evento.terminar("guardarInscripciones", ARCHIVO_INSCRIPCIONES, lineas);
         }
+        TIEMPO_GUARDAR_INSCRIPCIONES.detener(inicio);
     }
 
     /**
-     * Guarda el estado financiero (Header + Historial de transacciones).
+     * Guarda el estado financiero completo: reescribe la cabecera y todo el
+     * historial de transacciones. Sirve para compactar el historial; en la
+     * operación normal los registros se anexan con registrarMovimiento().
      * NO guarda entidades (Socios, Empleados, Clases) que tienen sus propios
      * archivos.
      */
     public void guardarEstadoCompleto() {
-        new java.io.File("datos").mkdirs();
-        try (java.io.PrintWriter pw = new java.io.PrintWriter(new java.io.FileWriter("datos/registros.txt"))) {
-            // Header
-            String nroCuenta = (cuenta != null) ? cuenta.getNroCuenta() : "000";
-            double saldo = (cuenta != null) ? cuenta.getSaldo() : 0.0;
-            pw.println("GIMNASIO|" + nombre + "|" + CUIT + "|" + direccion + "|" + provincia + "|" + nroCuenta + "|"
-                    + saldo);
-
-            // Registros (solo financieros o generales)
+        long inicio = TIEMPO_GUARDAR_ESTADO.iniciar();
+        EventosGimnasio.Guardado evento = new EventosGimnasio.Guardado();
+        evento.begin();
+        synchronized (registros) {
+            List<String> lineas = new ArrayList<>(registros.size());
             for (Registro r : registros) {
-                // Filtramos para no guardar basura si hubiera, aunque ahora 'registros' solo
-                // debería tener financieros
-                pw.println(r.toCSV());
+                lineas.add(r.toCSV());
             }
-        } catch (Exception e) {
-            System.err.println("Error guardando registros financieros: " + e.getMessage());
+            Runnable escritura = () -> EscritorAsincrono.escribirLineas(ARCHIVO_REGISTROS, lineas);
+            EscritorAsincrono asincrono = escritor;
+            if (asincrono != null) {
+                asincrono.reescribir(ARCHIVO_REGISTROS, escritura);
+            } else {
+                escritura.run();
+            }
+            largoHistorial = EventosGimnasio.bytesUtf8(lineas);
+            evento.terminar("guardarEstadoCompleto", ARCHIVO_REGISTROS, lineas);
+        }
+        TIEMPO_GUARDAR_ESTADO.detener(inicio);
+        guardarCabecera();
+    }
+
+    /**
+     * Crea un registro con el próximo id del historial y lo registra con
+     * registrarMovimiento(Registro). La asignación del id y el agregado son
+     * atómicos, así dos pagos simultáneos no comparten id.
+     */
+    public Registro registrarMovimiento(String tipo, String descripcion, long monto, Socio socio,
+            Empleado empleado, Clase clase) {
+        synchronized (registros) {
+            Registro r = new Registro(registros.size() + 1, new Date(), tipo, descripcion, monto, socio, empleado,
+                    clase);
+            registrarMovimiento(r);
+            return r;
         }
     }
 
-    // Métodos delegados que ahora también disparan el guardado específico
+    /**
+     * Registra varios movimientos del mismo tipo de una vez (por ejemplo, una
+     * liquidación de sueldos o una facturación de cuotas): los registros toman
+     * ids consecutivos, se anexan juntos al historial y la cabecera se guarda
+     * una sola vez. Las descripciones, los socios y los empleados van en
+     * paralelo a los montos; socios o empleados pueden ser null.
+     */
+    public List<Registro> registrarMovimientos(String tipo, List<String> descripciones, long[] montos,
+            List<Socio> socios, List<Empleado> empleados) {
+        List<Registro> nuevos = new ArrayList<>(montos.length);
+        synchronized (registros) {
+            Date fecha = new Date();
+            List<String> lineas = new ArrayList<>(montos.length);
+            for (int i = 0; i < montos.length; i++) {
+                Registro r = new Registro(registros.size() + 1, fecha, tipo, descripciones.get(i), montos[i],
+                        (socios != null) ? socios.get(i) : null, (empleados != null) ? empleados.get(i) : null,
+                        null);
+                registros.add(r);
+                nuevos.add(r);
+                lineas.add(r.toCSV());
+                avanzarPuntoDeControl(r);
+            }
+            largoHistorial += EventosGimnasio.bytesUtf8(lineas);
+            EscritorAsincrono asincrono = escritor;
+            if (asincrono != null) {
+                for (String linea : lineas) {
+                    asincrono.anexar(ARCHIVO_REGISTROS, linea);
+                }
+            } else {
+                EscritorAsincrono.anexarLineas(ARCHIVO_REGISTROS, lineas);
+            }
+        }
+        guardarCabecera();
+        return nuevos;
+    }
+
+    /**
+     * Agrega un registro al historial financiero. El registro se anexa al final
+     * de registros.txt y solo se reescribe la cabecera (saldo), por lo que el
+     * costo de cada pago no depende del tamaño del historial.
+     */
+    public void registrarMovimiento(Registro r) {
+        if (r == null) {
+            return;
+        }
+        // El archivo se anexa dentro del candado para que quede en el mismo orden
+        // que la lista
+        synchronized (registros) {
+            registros.add(r);
+            List<String> lineas = Collections.singletonList(r.toCSV());
+            EscritorAsincrono asincrono = escritor;
+            if (asincrono != null) {
+                asincrono.anexar(ARCHIVO_REGISTROS, lineas.get(0));
+            } else {
+                EscritorAsincrono.anexarLineas(ARCHIVO_REGISTROS, lineas);
+            }
+            avanzarPuntoDeControl(r);
+            largoHistorial += EventosGimnasio.bytesUtf8(lineas);
+        }
+        guardarCabecera();
+    }
+
+    // Se llama con el candado de registros tomado
+    private void avanzarPuntoDeControl(Registro r) {
+        ultimoIdHistorial = r.getIdRegistro();
+        saldoHistorial += CuentaBancaria.clasificar(r.getTipo()) * r.getMonto();
+    }
+
+    /**
+     * Guarda la cabecera del gimnasio (datos, saldo de la cuenta y punto de
+     * control del historial) en su archivo. Se escribe en un temporal y se
+     * reemplaza para no dejarla a medio escribir.
+     *
+     * El saldo guardado es el que resulta del historial hasta el último
+     * registro anexado, y junto a él van el id de ese registro y el largo de
+     * registros.txt. Si el sistema se corta entre un anexado y la cabecera, al
+     * cargar se aplican al saldo los registros posteriores al punto de control
+     * (ver cargarRegistrosFinancieros). Se escribe con el candado de registros
+     * tomado para que el punto de control no quede detrás de un anexado.
+     */
+    public void guardarCabecera() {
+        long inicio = TIEMPO_GUARDAR_CABECERA.iniciar();
+        EventosGimnasio.Guardado evento = new EventosGimnasio.Guardado();
+        evento.begin();
+        synchronized (registros) {
+            List<String> lineas = Collections.singletonList(lineaCabecera());
+            Runnable escritura = () -> EscritorAsincrono.escribirLineas(ARCHIVO_CABECERA, lineas);
+            EscritorAsincrono asincrono = escritor;
+            if (asincrono != null) {
+                asincrono.reescribir(ARCHIVO_CABECERA, escritura);
+            } else {
+                escritura.run();
+            }
+            evento.terminar("guardarCabecera", ARCHIVO_CABECERA, lineas);
+        }
+        TIEMPO_GUARDAR_CABECERA.detener(inicio);
+    }
+
+    private String lineaCabecera() {
+        String nroCuenta = (cuenta != null) ? cuenta.getNroCuenta() : "000";
+        return "GIMNASIO|" + nombre + "|" + CUIT + "|" + direccion + "|" + provincia + "|" + nroCuenta + "|"
+                + Dinero.aTexto(saldoHistorial) + "|" + ultimoIdHistorial + "|" + largoHistorial;
+    }
+
+    // Escritura asíncrona
+
+    /**
+     * Pasa la persistencia a un hilo escritor dedicado que agrupa las escrituras
+     * en lotes de hasta loteMaximo operaciones o demoraMaximaMs milisegundos.
+     */
+    public synchronized void iniciarEscrituraAsincrona(long demoraMaximaMs, int loteMaximo) {
+        if (escritor != null) {
+            return;
+        }
+        EscritorAsincrono nuevo = new EscritorAsincrono(Math.max(1024, loteMaximo * 4), demoraMaximaMs, loteMaximo);
+        persistenciaSocios.setEscritor(nuevo);
+        persistenciaEmpleados.setEscritor(nuevo);
+        persistenciaClases.setEscritor(nuevo);
+        persistenciaInscripciones.setEscritor(nuevo);
+        escritor = nuevo;
+    }
+
+    /** Espera a que todas las escrituras pendientes lleguen a disco. */
+    public void flush() {
+        EscritorAsincrono asincrono = escritor;
+        if (asincrono != null) {
+            asincrono.flush();
+        }
+    }
+
+    /**
+     * Cierre ordenado: escribe lo pendiente, detiene el escritor asíncrono (si lo
+     * hay) y guarda la instantánea binaria para el próximo arranque.
+     */
+    public void cerrar() {
+        cerrar(true);
+    }
+
+    /**
+     * Igual que cerrar(), pero la instantánea se guarda solo si
+     * guardarInstantanea es true (por ejemplo, no se guarda si alguna operación
+     * podría seguir modificando el modelo).
+     */
+    public synchronized void cerrar(boolean guardarInstantanea) {
+        EscritorAsincrono asincrono = escritor;
+        if (asincrono != null) {
+            // Lo que llegue al escritor ya cerrado (de un hilo que lo leyó antes de
+            // que se quite) se escribe en el hilo que llama, después de lo encolado
+            asincrono.cerrar();
+            escritor = null;
+            persistenciaSocios.setEscritor(null);
+            persistenciaEmpleados.setEscritor(null);
+            persistenciaClases.setEscritor(null);
+            persistenciaInscripciones.setEscritor(null);
+        }
+        if (guardarInstantanea) {
+            InstantaneaGimnasio.guardar(this);
+        }
+    }
+
+    public EscritorAsincrono getEscritor() {
+        return escritor;
+    }
+
+    // Métodos delegados que registran solo el cambio de la entidad afectada y
+    // compactan el archivo completo cuando se acumulan demasiados cambios
 
     public void registrarModificacionSocio(Socio s) {
-        guardarSocios();
+        if (s != null && persistenciaSocios.registrarModificacion(s.toCSV())) {
+            guardarSocios();
+        }
+    }
+
+    /**
+     * Registra la modificación de varios socios con una sola escritura del
+     * delta. Como un lote puede traer tantos cambios como el umbral, solo se
+     * compacta cuando el delta además supera la cantidad de socios: así una
+     * facturación masiva no reescribe el archivo completo en cada lote.
+     */
+    public void registrarModificacionesSocios(List<Socio> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        List<String> lineas = new ArrayList<>(lote.size());
+        for (Socio s : lote) {
+            lineas.add(s.toCSV());
+        }
+        if (persistenciaSocios.registrarModificaciones(lineas)
+                && persistenciaSocios.getCambiosPendientes() >= socios.size()) {
+            guardarSocios();
+        }
     }
 
     public void registrarModificacionEmpleado(Empleado e) {
-        guardarEmpleados();
+        if (e != null && persistenciaEmpleados.registrarModificacion(e.toCSV())) {
+            guardarEmpleados();
+        }
     }
 
     public void registrarModificacionClase(Clase c) {
-        guardarClases();
+        if (c != null && persistenciaClases.registrarModificacion(c.toCSV())) {
+            guardarClases();
+        }
+    }
+
+    public void registrarBajaSocio(Socio s) {
+        if (s != null && persistenciaSocios.registrarBaja(String.valueOf(s.getDni()))) {
+            guardarSocios();
+        }
+    }
+
+    public void registrarBajaEmpleado(Empleado e) {
+        if (e != null && persistenciaEmpleados.registrarBaja(String.valueOf(e.getDni()))) {
+            guardarEmpleados();
+        }
+    }
+
+    public void registrarBajaClase(Clase c) {
+        if (c != null && persistenciaClases.registrarBaja(c.getHorario())) {
+            guardarClases();
+        }
+    }
+
+    public void registrarInscripcion(Clase c, Socio s, boolean enEspera) {
+        if (c != null && s != null
+                && persistenciaInscripciones.registrarModificacion(c.lineaInscripcion(s.getDni(), enEspera))) {
+            guardarInscripciones();
+        }
+    }
+
+    public void registrarBajaInscripcion(Clase c, int dni) {
+        if (c != null && persistenciaInscripciones.registrarBaja(c.claveInscripcion(dni))) {
+            guardarInscripciones();
+        }
     }
 }
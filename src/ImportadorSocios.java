@@ -0,0 +1,194 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Importación masiva de socios desde un archivo con el formato de
+ * registrosSocios.txt (el de Socio.fromCSV), por ejemplo al migrar una sucursal.
+ *
+ * El archivo se recorre en streaming con LectorDelimitado. Los socios válidos se
+ * agregan al gimnasio por lotes sin registrar un cambio por socio, y al
+ * terminar se guarda el archivo de socios una sola vez.
+ *
+ * Se rechazan las líneas con formato inválido, los DNI repetidos dentro del
+ * archivo y los que ya existen en el gimnasio. Cada rechazo se escribe, con su
+ * número de línea y el motivo, en un archivo ".rechazados" junto al importado.
+ */
+public class ImportadorSocios {
+
+    public static final int TAMANIO_LOTE = 5000;
+    // Rechazos que se conservan en el resultado (el detalle completo va al archivo)
+    private static final int MAX_RECHAZOS_EN_RESULTADO = 100;
+
+    /** Resumen de una importación. */
+    public static class Resultado {
+        private long leidas;
+        private long importados;
+        private long rechazados;
+        private final List<String> primerosRechazos = new ArrayList<>();
+        private String archivoRechazos;
+        private long milisegundos;
+
+        public long getLeidas() {
+            return leidas;
+        }
+
+        public long getImportados() {
+            return importados;
+        }
+
+        public long getRechazados() {
+            return rechazados;
+        }
+
+        /** Los primeros rechazos ("línea N: motivo"), hasta 100. */
+        public List<String> getPrimerosRechazos() {
+            return Collections.unmodifiableList(primerosRechazos);
+        }
+
+        /** Archivo con todos los rechazos, o null si no hubo. */
+        public String getArchivoRechazos() {
+            return archivoRechazos;
+        }
+
+        public long getMilisegundos() {
+            return milisegundos;
+        }
+
+        @Override
+        public String toString() {
+            return "Resultado{" +
+                    "leidas=" + leidas +
+                    ", importados=" + importados +
+                    ", rechazados=" + rechazados +
+                    ", archivoRechazos='" + archivoRechazos + '\'' +
+                    ", ms=" + milisegundos +
+                    '}';
+        }
+    }
+
+    private final Gimnasio gimnasio;
+    private final int tamanioLote;
+
+    public ImportadorSocios(Gimnasio gimnasio) {
+        this(gimnasio, TAMANIO_LOTE);
+    }
+
+    public ImportadorSocios(Gimnasio gimnasio, int tamanioLote) {
+        this.gimnasio = gimnasio;
+        this.tamanioLote = Math.max(1, tamanioLote);
+    }
+
+    /**
+     * Importa los socios del archivo y retorna el resumen. Lanza IOException si
+     * el archivo no se puede leer; lo ya importado hasta ese punto se guarda
+     * igual.
+     */
+    public Resultado importar(String ruta) throws IOException {
+        long inicio = System.nanoTime();
+        Resultado resultado = new Resultado();
+        String rutaRechazos = ruta + ".rechazados";
+        new File(rutaRechazos).delete();
+        // DNIs ya vistos en este archivo
+        MapaEnteros<Boolean> vistos = new MapaEnteros<>();
+        List<Socio> lote = new ArrayList<>(tamanioLote);
+        List<Long> lineasLote = new ArrayList<>(tamanioLote);
+        PrintWriter rechazos = null;
+        try (LectorDelimitado lector = new LectorDelimitado(ruta, ';')) {
+            while (lector.siguienteLinea()) {
+                resultado.leidas++;
+                String motivo;
+                Socio s = null;
+                try {
+                    s = Socio.fromLector(lector);
+                    motivo = validar(s);
+                } catch (RuntimeException e) {
+                    motivo = "formato inválido";
+                }
+                if (motivo == null && vistos.ponerSiAusente(s.getDni(), Boolean.TRUE) != null) {
+                    motivo = "DNI repetido en el archivo";
+                }
+                if (motivo == null && gimnasio.buscarSocioPorDni(s.getDni()) != null) {
+                    motivo = "DNI ya registrado";
+                }
+                if (motivo != null) {
+                    rechazos = rechazar(resultado, rechazos, rutaRechazos, lector.numeroLinea(), motivo,
+                            lector.lineaActual());
+                    continue;
+                }
+                lote.add(s);
+                lineasLote.add(lector.numeroLinea());
+                if (lote.size() >= tamanioLote) {
+                    rechazos = confirmarLote(resultado, lote, lineasLote, rechazos, rutaRechazos);
+                }
+            }
+        } finally {
+            rechazos = confirmarLote(resultado, lote, lineasLote, rechazos, rutaRechazos);
+            if (rechazos != null) {
+                rechazos.close();
+            }
+            if (resultado.importados > 0) {
+                gimnasio.guardarSocios();
+            }
+            resultado.milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        }
+        return resultado;
+    }
+
+    /** Retorna el motivo por el que el socio no es válido, o null si lo es. */
+    private static String validar(Socio s) {
+        if (s == null) {
+            return "faltan campos";
+        }
+        if (s.getDni() <= 0) {
+            return "DNI inválido";
+        }
+        if (s.getNombre().isBlank() || s.getApellido().isBlank()) {
+            return "nombre y apellido son obligatorios";
+        }
+        if (s.getPlanMeses() < 0) {
+            return "plan inválido";
+        }
+        return null;
+    }
+
+    private PrintWriter confirmarLote(Resultado resultado, List<Socio> lote, List<Long> lineasLote,
+            PrintWriter rechazos, String rutaRechazos) throws IOException {
+        if (lote.isEmpty()) {
+            return rechazos;
+        }
+        // Si entre la validación y el agregado otro hilo dio de alta el mismo DNI,
+        // ese socio queda afuera
+        List<Integer> repetidos = gimnasio.agregarSociosEnLote(lote);
+        resultado.importados += lote.size() - repetidos.size();
+        for (int i : repetidos) {
+            rechazos = rechazar(resultado, rechazos, rutaRechazos, lineasLote.get(i), "DNI ya registrado",
+                    lote.get(i).toCSV());
+        }
+        lote.clear();
+        lineasLote.clear();
+        return rechazos;
+    }
+
+    private static PrintWriter rechazar(Resultado resultado, PrintWriter rechazos,
+            String rutaRechazos, long linea, String motivo, String contenido) throws IOException {
+        resultado.rechazados++;
+        String detalle = "línea " + linea + ": " + motivo;
+        if (resultado.primerosRechazos.size() < MAX_RECHAZOS_EN_RESULTADO) {
+            resultado.primerosRechazos.add(detalle);
+        }
+        if (rechazos == null) {
+            rechazos = new PrintWriter(new BufferedWriter(
+                    new FileWriter(rutaRechazos, StandardCharsets.UTF_8)));
+            resultado.archivoRechazos = rutaRechazos;
+        }
+        rechazos.println(detalle + " | " + contenido);
+        return rechazos;
+    }
+}
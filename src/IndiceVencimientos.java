@@ -0,0 +1,182 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Índice de los socios del gimnasio ordenado por fecha de vencimiento del
+ * plan. Permite responder "quiénes vencen en los próximos días", "cuántos
+ * socios están activos" o "quiénes vencieron desde tal fecha" recorriendo
+ * solo el rango de fechas pedido, sin revisar a todos los socios.
+ *
+ * La clave es (vencimiento, DNI), así dos socios que vencen en el mismo
+ * instante no se pisan. Cada socio guarda la clave con la que está indexado:
+ * cuando cambia su vencimiento (pagarCuota, setFechaVencimientoPlan) el propio
+ * socio avisa al índice, que quita la clave vieja y agrega la nueva.
+ *
+ * Para contar sin recorrer, además se lleva la cantidad de socios que vencen
+ * cada día en un árbol de Fenwick (sumas acumuladas por día desde 1970): la
+ * cantidad que vence antes de un instante es la suma de los días anteriores,
+ * O(log días), más los que vencen ese mismo día antes de esa hora, que se
+ * cuentan en el mapa. Los vencimientos fuera del rango de días se cuentan
+ * aparte.
+ *
+ * Los socios sin fecha de vencimiento se indexan como vencidos desde siempre.
+ */
+public class IndiceVencimientos {
+
+    /** Clave del índice: vencimiento en milisegundos y DNI para desempatar. */
+    static final class Clave implements Comparable<Clave> {
+        private final long vencimiento;
+        private final int dni;
+
+        Clave(long vencimiento, int dni) {
+            this.vencimiento = vencimiento;
+            this.dni = dni;
+        }
+
+        @Override
+        public int compareTo(Clave o) {
+            int c = Long.compare(vencimiento, o.vencimiento);
+            return (c != 0) ? c : Integer.compare(dni, o.dni);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave && compareTo((Clave) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(vencimiento) * 31 + dni;
+        }
+    }
+
+    private final ConcurrentSkipListMap<Clave, Socio> porVencimiento = new ConcurrentSkipListMap<>();
+    // el tamaño de un ConcurrentSkipListMap se calcula recorriéndolo, por eso se lleva aparte
+    private final AtomicInteger cantidad = new AtomicInteger();
+
+    private static final long DIA = 24L * 60 * 60 * 1000;
+    // Días cubiertos por el árbol desde el 1/1/1970 (hasta el año 2149)
+    private static final int DIAS = 1 << 16;
+    // Árbol de Fenwick de socios por día de vencimiento (índices desde 1)
+    private final AtomicIntegerArray porDia = new AtomicIntegerArray(DIAS + 1);
+    // Socios que vencen antes de 1970 (incluye a los que no tienen fecha)
+    private final AtomicInteger anteriores = new AtomicInteger();
+
+    /** Agrega el socio al índice con su vencimiento actual. */
+    void agregar(Socio s) {
+        Clave clave = new Clave(s.getVencimientoMilis(), s.getDni());
+        if (porVencimiento.putIfAbsent(clave, s) == null) {
+            contar(clave, 1);
+        }
+        s.indexarVencimiento(this, clave);
+    }
+
+    /** Quita el socio del índice. */
+    void quitar(Socio s) {
+        Clave clave = s.getClaveVencimiento();
+        if (clave != null && porVencimiento.remove(clave, s)) {
+            contar(clave, -1);
+        }
+        s.indexarVencimiento(null, null);
+    }
+
+    /** Reubica al socio después de que cambió su vencimiento. */
+    void actualizar(Socio s) {
+        Clave anterior = s.getClaveVencimiento();
+        Clave nueva = new Clave(s.getVencimientoMilis(), s.getDni());
+        if (anterior != null && anterior.equals(nueva)) {
+            return;
+        }
+        if (porVencimiento.putIfAbsent(nueva, s) == null) {
+            contar(nueva, 1);
+        }
+        if (anterior != null && porVencimiento.remove(anterior, s)) {
+            contar(anterior, -1);
+        }
+        s.indexarVencimiento(this, nueva);
+    }
+
+    /** Vacía el índice y lo vuelve a armar con los socios dados. */
+    void reconstruir(Collection<Socio> socios) {
+        for (Socio s : porVencimiento.values()) {
+            s.indexarVencimiento(null, null);
+        }
+        porVencimiento.clear();
+        cantidad.set(0);
+        anteriores.set(0);
+        for (int i = 1; i <= DIAS; i++) {
+            porDia.set(i, 0);
+        }
+        for (Socio s : socios) {
+            agregar(s);
+        }
+    }
+
+    /** Socios cuyo plan vence entre desde (inclusive) y hasta (exclusive), ordenados por vencimiento. */
+    public List<Socio> vencenEntre(long desde, long hasta) {
+        if (desde >= hasta) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(porVencimiento.subMap(new Clave(desde, Integer.MIN_VALUE), true,
+                new Clave(hasta, Integer.MIN_VALUE), false).values());
+    }
+
+    /** Cantidad de socios cuyo plan vence entre desde (inclusive) y hasta (exclusive). */
+    public int contarEntre(long desde, long hasta) {
+        if (desde >= hasta) {
+            return 0;
+        }
+        return contarAntesDe(hasta) - contarAntesDe(desde);
+    }
+
+    /**
+     * Cantidad de socios con el plan vencido al instante dado (vencimiento
+     * anterior a ahora).
+     */
+    public int contarVencidos(long ahora) {
+        return contarAntesDe(ahora);
+    }
+
+    /** Cantidad de socios con el plan vigente al instante dado (ver Socio.isActivo). */
+    public int contarActivos(long ahora) {
+        return cantidad.get() - contarVencidos(ahora);
+    }
+
+    public int tamanio() {
+        return cantidad.get();
+    }
+
+    /** Suma delta a la cantidad total y a la del día de vencimiento de la clave. */
+    private void contar(Clave clave, int delta) {
+        cantidad.addAndGet(delta);
+        long dia = Math.floorDiv(clave.vencimiento, DIA);
+        if (dia < 0) {
+            anteriores.addAndGet(delta);
+        } else if (dia < DIAS) {
+            for (int i = (int) dia + 1; i <= DIAS; i += i & -i) {
+                porDia.addAndGet(i, delta);
+            }
+        }
+    }
+
+    /** Cantidad de socios que vencen antes del instante. */
+    private int contarAntesDe(long instante) {
+        long dia = Math.floorDiv(instante, DIA);
+        if (dia < 0 || dia >= DIAS) {
+            // fuera del rango del árbol: se cuentan en el mapa (size() recorre la vista)
+            return porVencimiento.headMap(new Clave(instante, Integer.MIN_VALUE)).size();
+        }
+        int total = anteriores.get();
+        for (int i = (int) dia; i > 0; i -= i & -i) {
+            total += porDia.get(i);
+        }
+        // los que vencen ese mismo día, antes de esa hora
+        total += porVencimiento.subMap(new Clave(dia * DIA, Integer.MIN_VALUE), true,
+                new Clave(instante, Integer.MIN_VALUE), false).size();
+        return total;
+    }
+}
@@ -0,0 +1,457 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Instantánea binaria de todo el modelo del gimnasio (datos del gimnasio,
+ * cuenta, empleados, socios, clases con su entrenador y el historial
+ * financiero). Se escribe al cerrar el sistema de forma ordenada y permite
+ * arrancar con una única lectura secuencial en lugar de volver a procesar los
+ * archivos de texto.
+ *
+ * La instantánea guarda el tamaño y la fecha de modificación de cada archivo
+ * de texto al momento de escribirse, la cabecera del gimnasio (que lleva el
+ * punto de control del historial: último registro y largo de registros.txt) y
+ * la generación de cada archivo de entidades (ver PersistenciaIncremental); si
+ * algo de eso cambió (por ejemplo porque el sistema se cerró sin escribirla),
+ * se considera vencida y se cargan los archivos de texto. Nada de esto
+ * requiere leer los archivos completos.
+ *
+ * Con -Dgimnasio.instantanea.verificarContenido=true además se guarda y se
+ * compara un checksum (CRC32C) del contenido de cada archivo, que detecta
+ * también una edición a mano que conserva el largo dentro de la resolución de
+ * la fecha de modificación, a costa de leer todos los archivos al arrancar.
+ */
+public class InstantaneaGimnasio {
+
+    static final String ARCHIVO_INSTANTANEA = "datos/gimnasio.snap";
+    private static final int FIRMA = 0x47594D53; // "GYMS"
+    // 2: montos en centavos (long); 3: checksum en la huella; 4: punto de control
+    // y generaciones en la huella, checksum opcional
+    private static final int VERSION = 4;
+    private static final boolean VERIFICAR_CONTENIDO = Boolean.getBoolean("gimnasio.instantanea.verificarContenido");
+
+    private static final byte TIPO_ENTRENADOR = 1;
+    private static final byte TIPO_LIMPIEZA = 2;
+
+    /** Archivos de entidades incluidos en la instantánea. */
+    private static PersistenciaIncremental[] persistenciasRespaldadas(Gimnasio g) {
+        return new PersistenciaIncremental[] { g.persistenciaEmpleados, g.persistenciaSocios,
+                g.persistenciaClases };
+    }
+
+    /** Archivos de texto que respaldan la instantánea. */
+    private static String[] archivosRespaldados(Gimnasio g) {
+        return new String[] { Gimnasio.ARCHIVO_CABECERA, Gimnasio.ARCHIVO_REGISTROS,
+                g.persistenciaEmpleados.getRutaBase(), g.persistenciaEmpleados.getRutaDelta(),
+                g.persistenciaSocios.getRutaBase(), g.persistenciaSocios.getRutaDelta(),
+                g.persistenciaClases.getRutaBase(), g.persistenciaClases.getRutaDelta() };
+    }
+
+    /**
+     * Escribe la instantánea del gimnasio. Debe llamarse con los archivos de texto
+     * ya actualizados (sin escrituras pendientes).
+     */
+    public static void guardar(Gimnasio g) {
+        File destino = new File(ARCHIVO_INSTANTANEA);
+        File temporal = new File(ARCHIVO_INSTANTANEA + ".tmp");
+        destino.getAbsoluteFile().getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temporal), 1 << 16))) {
+            out.writeInt(FIRMA);
+            out.writeInt(VERSION);
+            escribirHuella(out, g);
+            escribirGimnasio(out, g);
+            escribirEmpleados(out, g.empleados.instantanea());
+            escribirSocios(out, g.socios.instantanea());
+            escribirClases(out, g.clases.instantanea());
+            escribirRegistros(out, g.registros);
+        } catch (Exception e) {
+            System.err.println("Error guardando instantánea: " + e.getMessage());
+            temporal.delete();
+            return;
+        }
+        try {
+            Files.move(temporal.toPath(), destino.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            System.err.println("Error guardando instantánea: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga el modelo desde la instantánea si existe y está al día con los
+     * archivos de texto. Retorna false (sin modificar el gimnasio) si no se pudo
+     * usar.
+     */
+    public static boolean cargar(Gimnasio g) {
+        File archivo = new File(ARCHIVO_INSTANTANEA);
+        if (!archivo.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(archivo), 1 << 16))) {
+            if (in.readInt() != FIRMA || in.readInt() != VERSION) {
+                return false;
+            }
+            if (!huellaVigente(in, g)) {
+                return false;
+            }
+            // Se lee todo antes de tocar el gimnasio, para no dejarlo a medias
+            Contenido datos = new Contenido();
+            leerGimnasio(in, datos);
+            leerEmpleados(in, datos);
+            leerSocios(in, datos);
+            leerClases(in, datos);
+            leerRegistros(in, datos);
+            copiar(datos, g);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Instantánea inválida, se cargan los archivos de texto: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Contenido leído de la instantánea, en colecciones simples; se copia al
+     * gimnasio recién cuando se leyó todo.
+     */
+    private static class Contenido {
+        private String nombre;
+        private int cuit;
+        private String direccion;
+        private String provincia;
+        private CuentaBancaria cuenta;
+        private final List<Empleado> empleados = new ArrayList<>();
+        private final MapaEnteros<Empleado> empleadosPorDni = new MapaEnteros<>();
+        private final List<Socio> socios = new ArrayList<>();
+        private final MapaEnteros<Socio> sociosPorDni = new MapaEnteros<>();
+        private final List<Clase> clases = new ArrayList<>();
+        private final List<Registro> registros = new ArrayList<>();
+    }
+
+    private static void copiar(Contenido origen, Gimnasio g) {
+        g.setNombre(origen.nombre);
+        g.setCUIT(origen.cuit);
+        g.setDireccion(origen.direccion);
+        g.setProvincia(origen.provincia);
+        g.cuenta = origen.cuenta;
+        g.empleados.addAll(origen.empleados);
+        for (Empleado e : origen.empleados) {
+            g.empleadosPorDni.poner(e.getDni(), e);
+        }
+        g.socios.addAll(origen.socios);
+        for (Socio s : origen.socios) {
+            g.sociosPorDni.poner(s.getDni(), s);
+        }
+        g.indiceVencimientos.reconstruir(origen.socios);
+        g.clases.addAll(origen.clases);
+        for (Clase c : origen.clases) {
+            g.clasesPorCasilla.set(c.getCasilla(), c);
+            c.enGrilla = true;
+        }
+        g.registros.addAll(origen.registros);
+    }
+
+    // Huella de los archivos de texto
+
+    private static void escribirHuella(DataOutputStream out, Gimnasio g) throws IOException {
+        String[] rutas = archivosRespaldados(g);
+        out.writeBoolean(VERIFICAR_CONTENIDO);
+        out.writeInt(rutas.length);
+        for (String ruta : rutas) {
+            File f = new File(ruta);
+            out.writeUTF(ruta);
+            out.writeLong(f.exists() ? f.length() : -1);
+            out.writeLong(f.exists() ? f.lastModified() : -1);
+            if (VERIFICAR_CONTENIDO) {
+                out.writeLong(checksum(f));
+            }
+        }
+        out.writeUTF(primeraLinea(Gimnasio.ARCHIVO_CABECERA));
+        for (PersistenciaIncremental p : persistenciasRespaldadas(g)) {
+            out.writeLong(p.generacionEnDisco());
+        }
+    }
+
+    private static boolean huellaVigente(DataInputStream in, Gimnasio g) throws IOException {
+        String[] rutas = archivosRespaldados(g);
+        boolean conChecksum = in.readBoolean();
+        // Si se pide verificar el contenido y la instantánea no tiene checksum, no
+        // hay forma de verificarla
+        if (VERIFICAR_CONTENIDO && !conChecksum) {
+            return false;
+        }
+        int cantidad = in.readInt();
+        if (cantidad != rutas.length) {
+            return false;
+        }
+        for (String ruta : rutas) {
+            File f = new File(ruta);
+            if (!in.readUTF().equals(ruta))
+                return false;
+            long largo = in.readLong();
+            long modificado = in.readLong();
+            long suma = conChecksum ? in.readLong() : -1;
+            if (largo != (f.exists() ? f.length() : -1) || modificado != (f.exists() ? f.lastModified() : -1))
+                return false;
+            if (VERIFICAR_CONTENIDO && suma != checksum(f))
+                return false;
+        }
+        if (!in.readUTF().equals(primeraLinea(Gimnasio.ARCHIVO_CABECERA))) {
+            return false;
+        }
+        for (PersistenciaIncremental p : persistenciasRespaldadas(g)) {
+            if (in.readLong() != p.generacionEnDisco())
+                return false;
+        }
+        return true;
+    }
+
+    /** Primera línea del archivo, o "" si no existe o está vacío. */
+    private static String primeraLinea(String ruta) throws IOException {
+        File f = new File(ruta);
+        if (!f.exists()) {
+            return "";
+        }
+        try (BufferedReader br = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+            String linea = br.readLine();
+            return (linea != null) ? linea : "";
+        }
+    }
+
+    /** CRC32C del contenido del archivo, o -1 si no existe. Lee el archivo completo. */
+    private static long checksum(File f) throws IOException {
+        if (!f.exists()) {
+            return -1;
+        }
+        CRC32C crc = new CRC32C();
+        try (FileChannel canal = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            while (canal.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    // Datos del gimnasio y cuenta
+
+    private static void escribirGimnasio(DataOutputStream out, Gimnasio g) throws IOException {
+        escribirTexto(out, g.getNombre());
+        out.writeInt(g.getCUIT());
+        escribirTexto(out, g.getDireccion());
+        escribirTexto(out, g.getProvincia());
+        CuentaBancaria cuenta = g.getCuenta();
+        out.writeBoolean(cuenta != null);
+        if (cuenta != null) {
+            escribirTexto(out, cuenta.getNroCuenta());
+            out.writeLong(cuenta.getSaldo());
+        }
+    }
+
+    private static void leerGimnasio(DataInputStream in, Contenido g) throws IOException {
+        g.nombre = leerTexto(in);
+        g.cuit = in.readInt();
+        g.direccion = leerTexto(in);
+        g.provincia = leerTexto(in);
+        if (in.readBoolean()) {
+            String nroCuenta = leerTexto(in);
+            long saldo = in.readLong();
+            g.cuenta = new CuentaBancaria(nroCuenta, saldo, g.nombre);
+        }
+    }
+
+    // Empleados
+
+    private static void escribirEmpleados(DataOutputStream out, List<Empleado> empleados) throws IOException {
+        out.writeInt(empleados.size());
+        for (Empleado e : empleados) {
+            out.writeByte(e instanceof Entrenador ? TIPO_ENTRENADOR : TIPO_LIMPIEZA);
+            out.writeInt(e.getDni());
+            escribirTexto(out, e.getNombre());
+            escribirTexto(out, e.getApellido());
+            escribirTexto(out, e.getSexo());
+            escribirFecha(out, e.getFechaNacimiento());
+            out.writeLong(e.getSueldo());
+            if (e instanceof Entrenador) {
+                escribirTexto(out, ((Entrenador) e).getEspecialidad());
+            } else {
+                Limpieza l = (Limpieza) e;
+                escribirTexto(out, l.getHorarioTrabajo());
+                escribirTexto(out, l.getSector());
+            }
+        }
+    }
+
+    private static void leerEmpleados(DataInputStream in, Contenido g) throws IOException {
+        int cantidad = in.readInt();
+        for (int i = 0; i < cantidad; i++) {
+            byte tipo = in.readByte();
+            int dni = in.readInt();
+            String nombre = leerTexto(in);
+            String apellido = leerTexto(in);
+            String sexo = leerTexto(in);
+            Date fechaNacimiento = leerFecha(in);
+            long sueldo = in.readLong();
+            Empleado e;
+            if (tipo == TIPO_ENTRENADOR) {
+                e = new Entrenador(nombre, apellido, dni, sexo, fechaNacimiento, sueldo, leerTexto(in), null);
+            } else {
+                String horario = leerTexto(in);
+                String sector = leerTexto(in);
+                e = new Limpieza(nombre, apellido, dni, sexo, fechaNacimiento, sueldo, horario, sector);
+            }
+            g.empleados.add(e);
+            g.empleadosPorDni.poner(dni, e);
+        }
+    }
+
+    // Socios
+
+    private static void escribirSocios(DataOutputStream out, List<Socio> socios) throws IOException {
+        out.writeInt(socios.size());
+        for (Socio s : socios) {
+            out.writeInt(s.getDni());
+            escribirTexto(out, s.getNombre());
+            escribirTexto(out, s.getApellido());
+            escribirTexto(out, s.getMembresia());
+            escribirTexto(out, s.getPlan());
+            out.writeInt(s.getPlanMeses());
+            escribirTexto(out, s.getCuenta() != null ? s.getCuenta().getNroCuenta() : null);
+            escribirFecha(out, s.getFechaInscripcion());
+            escribirFecha(out, s.getFechaVencimientoPlan());
+        }
+    }
+
+    private static void leerSocios(DataInputStream in, Contenido g) throws IOException {
+        int cantidad = in.readInt();
+        for (int i = 0; i < cantidad; i++) {
+            int dni = in.readInt();
+            String nombre = leerTexto(in);
+            String apellido = leerTexto(in);
+            String membresia = leerTexto(in);
+            String plan = leerTexto(in);
+            int planMeses = in.readInt();
+            String nroCuenta = leerTexto(in);
+            Date fechaInscripcion = leerFecha(in);
+            Date fechaVencimiento = leerFecha(in);
+            CuentaBancaria cuenta = nroCuenta != null ? new CuentaBancaria(nroCuenta, 0, nombre + " " + apellido)
+                    : null;
+            Socio s = new Socio(nombre, apellido, dni, membresia, null, cuenta, fechaInscripcion, fechaVencimiento,
+                    false, plan, planMeses);
+            g.socios.add(s);
+            g.sociosPorDni.poner(dni, s);
+        }
+    }
+
+    // Clases (el entrenador se guarda por DNI y se vuelve a vincular al leer)
+
+    private static void escribirClases(DataOutputStream out, List<Clase> clases) throws IOException {
+        out.writeInt(clases.size());
+        for (Clase c : clases) {
+            escribirTexto(out, c.getNombre());
+            escribirTexto(out, c.getHorario());
+            out.writeInt(c.getCupoMaximo());
+            out.writeBoolean(c.getEntrenador() != null);
+            if (c.getEntrenador() != null) {
+                out.writeInt(c.getEntrenador().getDni());
+            }
+        }
+    }
+
+    private static void leerClases(DataInputStream in, Contenido g) throws IOException {
+        int cantidad = in.readInt();
+        for (int i = 0; i < cantidad; i++) {
+            String nombre = leerTexto(in);
+            String horario = leerTexto(in);
+            int cupo = in.readInt();
+            Entrenador entrenador = null;
+            if (in.readBoolean()) {
+                Empleado e = g.empleadosPorDni.obtener(in.readInt());
+                entrenador = (e instanceof Entrenador) ? (Entrenador) e : null;
+            }
+            Clase c = new Clase(nombre, horario, cupo, entrenador, null);
+            if (entrenador != null) {
+                entrenador.asignarClase(c);
+            }
+            if (c.getCasilla() >= 0) {
+                g.clases.add(c);
+            }
+        }
+    }
+
+    // Historial financiero (igual que al cargar registros.txt, sin entidades
+    // vinculadas y compartido con los movimientos de la cuenta)
+
+    private static void escribirRegistros(DataOutputStream out, List<Registro> registros) throws IOException {
+        synchronized (registros) {
+            out.writeInt(registros.size());
+            for (Registro r : registros) {
+                out.writeInt(r.getIdRegistro());
+                escribirFecha(out, r.getFecha());
+                escribirTexto(out, r.getTipo());
+                escribirTexto(out, r.getDescripcion());
+                out.writeLong(r.getMonto());
+            }
+        }
+    }
+
+    private static void leerRegistros(DataInputStream in, Contenido g) throws IOException {
+        int cantidad = in.readInt();
+        if (g.cuenta == null) {
+            g.cuenta = new CuentaBancaria("001", 0, g.nombre);
+        }
+        for (int i = 0; i < cantidad; i++) {
+            int id = in.readInt();
+            Date fecha = leerFecha(in);
+            String tipo = leerTexto(in);
+            String descripcion = leerTexto(in);
+            long monto = in.readLong();
+            Registro r = new Registro(id, fecha, tipo, descripcion, monto, null, null, null);
+            g.registros.add(r);
+            g.cuenta.agregarMovimiento(r);
+        }
+    }
+
+    // Tipos básicos con soporte de null
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) {
+            out.writeUTF(texto);
+        }
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void escribirFecha(DataOutputStream out, Date fecha) throws IOException {
+        out.writeLong(fecha != null ? fecha.getTime() : Long.MIN_VALUE);
+    }
+
+    private static Date leerFecha(DataInputStream in) throws IOException {
+        long valor = in.readLong();
+        return valor != Long.MIN_VALUE ? new Date(valor) : null;
+    }
+}
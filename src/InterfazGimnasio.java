@@ -1,11 +1,21 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.plaf.FontUIResource;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.text.SimpleDateFormat;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Date;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Clase que maneja la interfaz de usuario del gimnasio, utilizando Swing y
@@ -15,12 +25,16 @@ public class InterfazGimnasio {
     private Gimnasio gimnasio;
     private JFrame mainFrame;
     private JButton[][] gridButtons;
+    // Operaciones del modelo que escriben a disco: corren fuera del hilo de Swing
+    private final TareasEnSegundoPlano tareas;
+    private JLabel lblEstado;
 
     /**
      * Construye la interfaz de usuario para un gimnasio dado.
      */
     public InterfazGimnasio(Gimnasio gimnasio) {
         this.gimnasio = gimnasio;
+        this.tareas = new TareasEnSegundoPlano(this::mostrarEstado);
     }
 
     /**
@@ -43,17 +57,24 @@ public class InterfazGimnasio {
         }
 
         // Aumentar tamaño de fuente global
-        java.util.Enumeration<Object> keys = UIManager.getDefaults().keys();
+        Enumeration<Object> keys = UIManager.getDefaults().keys();
         while (keys.hasMoreElements()) {
             Object key = keys.nextElement();
             Object value = UIManager.get(key);
-            if (value instanceof javax.swing.plaf.FontUIResource) {
-                UIManager.put(key, new javax.swing.plaf.FontUIResource("Arial", Font.PLAIN, 16));
+            if (value instanceof FontUIResource) {
+                UIManager.put(key, new FontUIResource("Arial", Font.PLAIN, 16));
             }
         }
 
         mainFrame = new JFrame("Sistema - " + gimnasio.getNombre());
-        mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Al cerrar se esperan las tareas pendientes (ver salir())
+        mainFrame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        mainFrame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                salir();
+            }
+        });
         mainFrame.setLayout(new BorderLayout(8, 8));
 
         // Cabecera con días de la semana
@@ -103,16 +124,20 @@ public class InterfazGimnasio {
         JButton btnCuenta = new JButton("Cuenta bancaria");
         btnCuenta.addActionListener(e -> menuCuentaBancaria());
         JButton btnSalir = new JButton("Salir");
-        btnSalir.addActionListener(e -> {
-            mainFrame.dispose();
-            System.exit(0);
-        });
+        btnSalir.addActionListener(e -> salir());
         controls.add(btnSocios);
         controls.add(btnEmpleados);
         controls.add(btnClases);
         controls.add(btnCuenta);
         controls.add(btnSalir);
-        mainFrame.add(controls, BorderLayout.SOUTH);
+
+        // Barra de estado: indica si hay operaciones en curso
+        lblEstado = new JLabel("Listo");
+        lblEstado.setBorder(BorderFactory.createEmptyBorder(0, 8, 4, 8));
+        JPanel sur = new JPanel(new BorderLayout());
+        sur.add(controls, BorderLayout.CENTER);
+        sur.add(lblEstado, BorderLayout.SOUTH);
+        mainFrame.add(sur, BorderLayout.SOUTH);
 
         // Actualizar grilla inicial con las clases existentes
         actualizarGrilla();
@@ -121,6 +146,35 @@ public class InterfazGimnasio {
         mainFrame.setVisible(true);
     }
 
+    /** Muestra en la barra de estado las operaciones pendientes y el cursor de espera. */
+    private void mostrarEstado(int pendientes, String descripcion) {
+        if (pendientes == 0) {
+            lblEstado.setText("Listo");
+            mainFrame.setCursor(Cursor.getDefaultCursor());
+        } else {
+            String texto = (descripcion != null) ? "Procesando: " + descripcion : "Procesando";
+            lblEstado.setText(texto + (pendientes > 1 ? " (" + pendientes + " operaciones pendientes)" : "..."));
+            mainFrame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+
+    /**
+     * Espera (hasta esperaMs milisegundos) a que terminen las operaciones
+     * pendientes y no acepta nuevas. Retorna true si terminaron todas.
+     */
+    public boolean detenerTareas(long esperaMs) {
+        return tareas.detener(esperaMs);
+    }
+
+    /** Cierra la aplicación después de que terminen de guardarse las operaciones pendientes. */
+    private void salir() {
+        tareas.ejecutar("Cerrando", () -> {
+        }, () -> {
+            mainFrame.dispose();
+            System.exit(0);
+        });
+    }
+
     /**
      * Acción al hacer clic en una celda de la grilla (día y turno específicos).
      * Muestra detalles de la clase en ese horario o indica si está libre,
@@ -129,7 +183,7 @@ public class InterfazGimnasio {
     private void onGridCellClicked(int diaIdx, int turnoIdx) {
         String dia = Gimnasio.DIAS_SEMANA[diaIdx];
         String turno = Gimnasio.TURNOS[turnoIdx];
-        Clase clase = gimnasio.getClaseEnHorario(dia, turno);
+        Clase clase = gimnasio.getClaseEnHorario(diaIdx, turnoIdx);
         if (clase == null) {
             JOptionPane.showMessageDialog(null, "No hay clases asignadas en " + dia + " - " + turno);
             return;
@@ -151,9 +205,10 @@ public class InterfazGimnasio {
             int confirm = JOptionPane.showConfirmDialog(null, "¿Confirma eliminar la clase " + clase.getNombre() + "?",
                     "Eliminar clase", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                gimnasio.eliminarClase(clase);
-                actualizarGrilla();
-                JOptionPane.showMessageDialog(null, "Clase eliminada.");
+                tareas.ejecutar("Eliminar clase", () -> gimnasio.eliminarClase(clase), () -> {
+                    actualizarGrilla();
+                    JOptionPane.showMessageDialog(null, "Clase eliminada.");
+                });
             }
         }
         // sel == 2 (Cancelar) no hace nada
@@ -169,9 +224,7 @@ public class InterfazGimnasio {
                 JButton btn = gridButtons[t][d];
                 if (btn == null)
                     continue;
-                String dia = Gimnasio.DIAS_SEMANA[d];
-                String turno = Gimnasio.TURNOS[t];
-                Clase clase = gimnasio.getClaseEnHorario(dia, turno);
+                Clase clase = gimnasio.getClaseEnHorario(d, t);
                 if (clase != null) {
                     // Mostrar nombre de la clase en el botón
                     btn.setText(clase.getNombre());
@@ -187,7 +240,8 @@ public class InterfazGimnasio {
     // ==== Menús de opciones (Socios, Empleados, Clases, Cuenta, etc.) ====
 
     private void menuSocios() {
-        String[] opciones = { "Listar socios", "Agregar socio", "Eliminar socio", "Modificar socio", "Volver" };
+        String[] opciones = { "Listar socios", "Agregar socio", "Eliminar socio", "Modificar socio",
+                "Importar socios", "Próximos vencimientos", "Volver" };
         while (true) {
             int seleccion = JOptionPane.showOptionDialog(
                     null,
@@ -199,10 +253,12 @@ public class InterfazGimnasio {
                     opciones,
                     opciones[0]);
 
-            if (seleccion == JOptionPane.CLOSED_OPTION || seleccion == 4) {
+            if (seleccion == JOptionPane.CLOSED_OPTION || seleccion == 6) {
                 break;
             }
 
+            // La acción queda registrada en la grabación de JFR (ver EventosGimnasio)
+            EventosGimnasio.AccionMenu.registrar("Socios", opciones[seleccion]);
             switch (seleccion) {
                 case 0: // Listar
                     listarSocios();
@@ -216,6 +272,12 @@ public class InterfazGimnasio {
                 case 3: // Modificar
                     modificarSocioPorDni();
                     break;
+                case 4: // Importar
+                    importarSociosDesdeArchivo();
+                    break;
+                case 5: // Próximos vencimientos
+                    mostrarProximosVencimientos();
+                    break;
             }
         }
     }
@@ -238,6 +300,7 @@ public class InterfazGimnasio {
                 break;
             }
 
+            EventosGimnasio.AccionMenu.registrar("Empleados", opciones[seleccion]);
             switch (seleccion) {
                 case 0: // Listar
                     listarEmpleados();
@@ -256,7 +319,8 @@ public class InterfazGimnasio {
     }
 
     private void menuClases() {
-        String[] opciones = { "Listar clases", "Agregar clase", "Eliminar clase", "Volver" };
+        String[] opciones = { "Listar clases", "Agregar clase", "Eliminar clase", "Inscribir socio",
+                "Cancelar inscripción", "Volver" };
         while (true) {
             int seleccion = JOptionPane.showOptionDialog(
                     null,
@@ -268,10 +332,11 @@ public class InterfazGimnasio {
                     opciones,
                     opciones[0]);
 
-            if (seleccion == JOptionPane.CLOSED_OPTION || seleccion == 3) {
+            if (seleccion == JOptionPane.CLOSED_OPTION || seleccion == 5) {
                 break;
             }
 
+            EventosGimnasio.AccionMenu.registrar("Clases", opciones[seleccion]);
             switch (seleccion) {
                 case 0: // Listar
                     listarClases();
@@ -282,12 +347,19 @@ public class InterfazGimnasio {
                 case 2: // Eliminar
                     eliminarClaseSeleccion();
                     break;
+                case 3: // Inscribir socio
+                    inscribirSocioEnClaseDesdeMenu();
+                    break;
+                case 4: // Cancelar inscripción
+                    cancelarInscripcionDesdeMenu();
+                    break;
             }
         }
     }
 
     private void menuCuentaBancaria() {
-        String[] opciones = { "Registrar pago socio", "Pagar sueldo", "Consultar saldo", "Ver movimientos", "Volver" };
+        String[] opciones = { "Registrar pago socio", "Pagar sueldo", "Liquidar sueldos", "Facturar cuotas",
+                "Consultar saldo", "Ver movimientos", "Volver" };
         while (true) {
             int seleccion = JOptionPane.showOptionDialog(
                     null,
@@ -299,10 +371,11 @@ public class InterfazGimnasio {
                     opciones,
                     opciones[0]);
 
-            if (seleccion == JOptionPane.CLOSED_OPTION || seleccion == 4) {
+            if (seleccion == JOptionPane.CLOSED_OPTION || seleccion == 6) {
                 break;
             }
 
+            EventosGimnasio.AccionMenu.registrar("Cuenta Bancaria", opciones[seleccion]);
             switch (seleccion) {
                 case 0: // Registrar pago socio
                     gestionarPagoSocio();
@@ -310,14 +383,20 @@ public class InterfazGimnasio {
                 case 1: // Pagar sueldo
                     pagarSueldoEmpleadoDesdeMenu();
                     break;
-                case 2: // Consultar saldo
+                case 2: // Liquidar sueldos
+                    liquidarSueldosDesdeMenu();
+                    break;
+                case 3: // Facturar cuotas
+                    facturarCuotasDesdeMenu();
+                    break;
+                case 4: // Consultar saldo
                     if (gimnasio.getCuenta() != null) {
-                        JOptionPane.showMessageDialog(null, "Saldo actual: $" + gimnasio.getCuenta().getSaldo());
+                        JOptionPane.showMessageDialog(null, "Saldo actual: $" + Dinero.aTexto(gimnasio.getCuenta().getSaldo()));
                     } else {
                         JOptionPane.showMessageDialog(null, "No hay cuenta bancaria asignada al gimnasio.");
                     }
                     break;
-                case 3: // Ver movimientos
+                case 5: // Ver movimientos
                     mostrarMovimientosCuentaDialog();
                     break;
             }
@@ -327,71 +406,179 @@ public class InterfazGimnasio {
     // === Funciones de lista y gestión para cada menú ===
 
     private void listarSocios() {
-        if (gimnasio.getSocios().isEmpty()) {
+        if (gimnasio.getCantidadSocios() == 0) {
             JOptionPane.showMessageDialog(null, "No hay socios cargados en el sistema.");
             return;
         }
-        StringBuilder detalle = new StringBuilder("Socios inscriptos:\n");
-        for (Socio s : gimnasio.getSocios()) {
-            boolean activo = s.isActivo(); // actualiza el estado activo
-            detalle.append("DNI: ").append(s.getDni()).append(" - ")
-                    .append(s.getNombre()).append(" ").append(s.getApellido())
-                    .append(" - Activo: ").append(activo ? "Sí" : "No")
-                    .append(" - Plan: ")
-                    .append(s.getPlan() != null && !s.getPlan().isEmpty() ? s.getPlan() : "N/A")
-                    .append(" - Vence: ").append(s.getFechaVencimientoFormateada())
-                    .append("\n");
+        List<ModeloTablaEntidades.Columna<Socio>> columnas = new ArrayList<>();
+        columnas.add(new ModeloTablaEntidades.Columna<>("DNI", Integer.class, Socio::getDni));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Nombre", String.class, Socio::getNombre));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Apellido", String.class, Socio::getApellido));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Activo", String.class,
+                s -> s.isActivo() ? "Sí" : "No"));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Plan", String.class,
+                s -> s.getPlan() != null && !s.getPlan().isEmpty() ? s.getPlan() : "N/A"));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Vence", String.class,
+                Socio::getFechaVencimientoFormateada, Socio::getVencimientoMilis));
+        mostrarTabla("Socios inscriptos", new ModeloTablaEntidades<>(columnas, gimnasio::getSocios,
+                s -> s.getDni() + " " + s.getNombre() + " " + s.getApellido()));
+    }
+
+    /**
+     * Muestra cuántos socios están activos y vencidos, y quiénes vencen en los
+     * próximos días (consultando el índice de vencimientos).
+     */
+    private void mostrarProximosVencimientos() {
+        String diasTexto = JOptionPane.showInputDialog(null, "Mostrar los planes que vencen en los próximos días:",
+                "7");
+        if (diasTexto == null) {
+            return;
+        }
+        int dias;
+        try {
+            dias = Integer.parseInt(diasTexto.trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(null, "Ingrese una cantidad de días válida.");
+            return;
         }
-        JOptionPane.showMessageDialog(null, detalle.toString());
+        Date desde = new Date();
+        Date hasta = new Date(desde.getTime() + Math.max(0, dias) * 24L * 60 * 60 * 1000);
+        List<Socio> proximos = gimnasio.getSociosQueVencenEntre(desde, hasta);
+        StringBuilder detalle = new StringBuilder();
+        detalle.append("Socios activos: ").append(gimnasio.contarSociosActivos())
+                .append(" - Vencidos: ").append(gimnasio.contarSociosVencidos()).append("\n\n");
+        if (proximos.isEmpty()) {
+            detalle.append("Ningún plan vence en los próximos ").append(dias).append(" días.");
+        } else {
+            detalle.append("Vencen en los próximos ").append(dias).append(" días (").append(proximos.size())
+                    .append("):\n");
+            for (int i = 0; i < Math.min(50, proximos.size()); i++) {
+                Socio s = proximos.get(i);
+                detalle.append(s.getFechaVencimientoFormateada()).append(" - DNI: ").append(s.getDni())
+                        .append(" - ").append(s.getNombre()).append(" ").append(s.getApellido()).append("\n");
+            }
+            if (proximos.size() > 50) {
+                detalle.append("... y ").append(proximos.size() - 50).append(" más");
+            }
+        }
+        JOptionPane.showMessageDialog(null, detalle.toString(), "Próximos vencimientos",
+                JOptionPane.INFORMATION_MESSAGE);
     }
 
     private void listarEmpleados() {
-        if (gimnasio.getEmpleados().isEmpty()) {
+        if (gimnasio.getCantidadEmpleados() == 0) {
             JOptionPane.showMessageDialog(null, "No hay empleados cargados en el sistema.");
             return;
         }
-        StringBuilder detalle = new StringBuilder("Empleados registrados:\n");
-        for (Empleado e : gimnasio.getEmpleados()) {
-            detalle.append(e instanceof Entrenador ? "[Entrenador] " : "[Personal] ")
-                    .append(e.getNombre()).append(" ").append(e.getApellido())
-                    .append(" - DNI: ").append(e.getDni())
-                    .append(" - Sueldo: $").append(e.getSueldo())
-                    .append(e instanceof Entrenador ? " - Esp: " + ((Entrenador) e).getEspecialidad() : "")
-                    .append(e instanceof Limpieza ? " - Sector: " + ((Limpieza) e).getSector() : "")
-                    .append("\n");
-        }
-        JOptionPane.showMessageDialog(null, detalle.toString());
+        List<ModeloTablaEntidades.Columna<Empleado>> columnas = new ArrayList<>();
+        columnas.add(new ModeloTablaEntidades.Columna<>("Tipo", String.class,
+                e -> e instanceof Entrenador ? "Entrenador" : "Personal"));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Nombre", String.class, Empleado::getNombre));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Apellido", String.class, Empleado::getApellido));
+        columnas.add(new ModeloTablaEntidades.Columna<>("DNI", Integer.class, Empleado::getDni));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Sueldo", String.class,
+                e -> "$" + Dinero.aTexto(e.getSueldo()), Empleado::getSueldo));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Especialidad / Sector", String.class,
+                e -> e instanceof Entrenador ? ((Entrenador) e).getEspecialidad()
+                        : e instanceof Limpieza ? ((Limpieza) e).getSector() : ""));
+        mostrarTabla("Empleados registrados", new ModeloTablaEntidades<>(columnas, gimnasio::getEmpleados,
+                e -> e.getDni() + " " + e.getNombre() + " " + e.getApellido()));
     }
 
     private void listarClases() {
-        if (gimnasio.getClases().isEmpty()) {
+        if (gimnasio.getCantidadClases() == 0) {
             JOptionPane.showMessageDialog(null, "No hay clases cargadas.");
             return;
         }
-        StringBuilder detalle = new StringBuilder("Clases disponibles:\n");
-        for (Clase c : gimnasio.getClases()) {
-            int cupoMaximo = c.getCupoMaximo();
-            int inscriptos = c.getSociosInscriptos().size();
-            Entrenador entrenador = c.getEntrenador();
-
-            detalle.append("Nombre: ")
-                    .append(c.getNombre())
-                    .append(" - Horario: ")
-                    .append(c.getHorario())
-                    .append(" - Cupo: ")
-                    .append(inscriptos)
-                    .append("/")
-                    .append(cupoMaximo)
-                    .append(" - Entrenador: ")
-                    .append(entrenador != null ? entrenador.getNombre() + " " + entrenador.getApellido()
-                            : "Sin asignar")
-                    .append(" - Especialidad: ")
-                    .append(entrenador != null && entrenador.getEspecialidad() != null
-                            ? entrenador.getEspecialidad()
-                            : "N/A")
-                    .append("\n");
-        }
-        JOptionPane.showMessageDialog(null, detalle.toString());
+        List<ModeloTablaEntidades.Columna<Clase>> columnas = new ArrayList<>();
+        columnas.add(new ModeloTablaEntidades.Columna<>("Nombre", String.class, Clase::getNombre));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Horario", String.class, Clase::getHorario,
+                Clase::getCasilla));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Cupo", String.class,
+                c -> c.getSociosInscriptos().size() + "/" + c.getCupoMaximo(), c -> c.getSociosInscriptos().size()));
+        columnas.add(new ModeloTablaEntidades.Columna<>("En espera", Integer.class, c -> c.getListaEspera().size()));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Entrenador", String.class,
+                c -> c.getEntrenador() != null ? c.getEntrenador().getNombre() + " " + c.getEntrenador().getApellido()
+                        : "Sin asignar"));
+        columnas.add(new ModeloTablaEntidades.Columna<>("Especialidad", String.class,
+                c -> c.getEntrenador() != null && c.getEntrenador().getEspecialidad() != null
+                        ? c.getEntrenador().getEspecialidad()
+                        : "N/A"));
+        mostrarTabla("Clases disponibles", new ModeloTablaEntidades<>(columnas, gimnasio::getClases,
+                c -> c.getNombre() + " " + c.getHorario()));
+    }
+
+    /**
+     * Muestra las entidades en una tabla con búsqueda. Clic en un encabezado
+     * ordena por esa columna (otro clic invierte el orden); el filtrado y el
+     * ordenamiento corren en segundo plano (ver ModeloTablaEntidades).
+     */
+    private void mostrarTabla(String titulo, ModeloTablaEntidades<?> modelo) {
+        JDialog dialog = new JDialog(mainFrame, titulo, true);
+        dialog.setLayout(new BorderLayout(8, 8));
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField txtBuscar = new JTextField(24);
+        top.add(new JLabel("Buscar:"));
+        top.add(txtBuscar);
+        dialog.add(top, BorderLayout.NORTH);
+
+        JTable tabla = new JTable(modelo);
+        tabla.setFillsViewportHeight(true);
+        tabla.getTableHeader().setReorderingAllowed(false);
+        tabla.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int columna = tabla.columnAtPoint(e.getPoint());
+                if (columna >= 0) {
+                    modelo.ordenarPor(tabla.convertColumnIndexToModel(columna));
+                }
+            }
+        });
+        dialog.add(new JScrollPane(tabla), BorderLayout.CENTER);
+
+        JLabel lblEstado = new JLabel(" ");
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(lblEstado, BorderLayout.WEST);
+        JButton btnCerrar = new JButton("Cerrar");
+        btnCerrar.addActionListener(e -> dialog.dispose());
+        JPanel botones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        botones.add(btnCerrar);
+        bottom.add(botones, BorderLayout.EAST);
+        dialog.add(bottom, BorderLayout.SOUTH);
+
+        modelo.setAlActualizar(() -> {
+            String estado = "Mostrando " + modelo.getRowCount() + " de " + modelo.getCantidadTotal();
+            if (modelo.getColumnaOrden() >= 0) {
+                estado += " - Ordenado por " + modelo.getColumnName(modelo.getColumnaOrden())
+                        + (modelo.isAscendente() ? " (ascendente)" : " (descendente)");
+            }
+            lblEstado.setText(estado);
+        });
+        // El filtro se aplica cuando se deja de escribir, no en cada tecla
+        Timer demoraFiltro = new Timer(250, e -> modelo.filtrar(txtBuscar.getText()));
+        demoraFiltro.setRepeats(false);
+        txtBuscar.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                demoraFiltro.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                demoraFiltro.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                demoraFiltro.restart();
+            }
+        });
+
+        modelo.recargar();
+        dialog.setSize(820, 500);
+        dialog.setLocationRelativeTo(mainFrame);
+        dialog.setVisible(true);
+        demoraFiltro.stop();
     }
 
     private void agregarSocioDesdeMenu() {
@@ -445,11 +632,14 @@ public class InterfazGimnasio {
                         nroCuenta = "000" + dni;
 
                     CuentaBancaria cuentaSocio = new CuentaBancaria(nroCuenta, 0, nombre + " " + apellido);
-                    Socio socio = new Socio(nombre, apellido, dni, membresia, null, cuentaSocio, new java.util.Date(),
-                            new java.util.Date(), true, planStr, meses);
-
-                    gimnasio.agregarSocio(socio);
-                    JOptionPane.showMessageDialog(null, "Socio agregado exitosamente.");
+                    Socio socio = new Socio(nombre, apellido, dni, membresia, null, cuentaSocio, new Date(),
+                            new Date(), true, planStr, meses);
+
+                    tareas.ejecutar("Agregar socio", () -> {
+                        gimnasio.agregarSocio(socio);
+                        return gimnasio.buscarSocioPorDni(socio.getDni()) == socio;
+                    }, agregado -> JOptionPane.showMessageDialog(null,
+                            agregado ? "Socio agregado exitosamente." : "Error: Ya existe un socio con ese DNI."));
                     break;
 
                 } catch (NumberFormatException e) {
@@ -465,6 +655,35 @@ public class InterfazGimnasio {
         }
     }
 
+    /**
+     * Importa socios desde un archivo con el formato de registrosSocios.txt y
+     * muestra el resumen (importados, rechazados y dónde quedó el detalle).
+     */
+    private void importarSociosDesdeArchivo() {
+        JFileChooser selector = new JFileChooser(".");
+        selector.setDialogTitle("Importar socios");
+        if (selector.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String ruta = selector.getSelectedFile().getPath();
+        tareas.ejecutar("Importar socios", () -> new ImportadorSocios(gimnasio).importar(ruta), r -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Líneas leídas: ").append(r.getLeidas()).append("\n");
+            sb.append("Socios importados: ").append(r.getImportados()).append("\n");
+            sb.append("Líneas rechazadas: ").append(r.getRechazados()).append("\n");
+            List<String> rechazos = r.getPrimerosRechazos();
+            for (int i = 0; i < Math.min(10, rechazos.size()); i++) {
+                sb.append("  ").append(rechazos.get(i)).append("\n");
+            }
+            if (r.getArchivoRechazos() != null) {
+                sb.append("Detalle de rechazos en: ").append(r.getArchivoRechazos());
+            }
+            JOptionPane.showMessageDialog(null, sb.toString(), "Importación de socios",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }, e -> JOptionPane.showMessageDialog(null, "No se pudo importar el archivo: " + e.getMessage(), "Error",
+                JOptionPane.ERROR_MESSAGE));
+    }
+
     private void eliminarSocioPorDni() {
         try {
             String dniTxt = JOptionPane.showInputDialog(null, "Ingrese DNI del socio a eliminar:");
@@ -480,8 +699,8 @@ public class InterfazGimnasio {
                     "¿Confirma eliminar a " + s.getNombre() + " " + s.getApellido() + "?", "Confirmar eliminación",
                     JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                gimnasio.eliminarSocio(s);
-                JOptionPane.showMessageDialog(null, "Socio eliminado.");
+                tareas.ejecutar("Eliminar socio", () -> gimnasio.eliminarSocio(s),
+                        () -> JOptionPane.showMessageDialog(null, "Socio eliminado."));
             }
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(null, "DNI inválido.");
@@ -559,8 +778,8 @@ public class InterfazGimnasio {
                             }
                         }
 
-                        gimnasio.registrarModificacionSocio(s);
-                        JOptionPane.showMessageDialog(null, "Socio actualizado exitosamente.");
+                        tareas.ejecutar("Modificar socio", () -> gimnasio.registrarModificacionSocio(s),
+                                () -> JOptionPane.showMessageDialog(null, "Socio actualizado exitosamente."));
                         break;
                     } catch (ExcepcionDatosObligatorios e) {
                         JOptionPane.showMessageDialog(null, "Error: " + e.getMessage());
@@ -618,7 +837,7 @@ public class InterfazGimnasio {
         panel.add(txtSector);
 
         // Listener para habilitar/deshabilitar según tipo
-        java.awt.event.ActionListener updateFields = e -> {
+        ActionListener updateFields = e -> {
             boolean isEntrenador = "Entrenador".equals(cmbTipo.getSelectedItem());
             cmbEspecialidad.setEnabled(isEntrenador);
             txtHorario.setEnabled(!isEntrenador);
@@ -647,27 +866,30 @@ public class InterfazGimnasio {
                         throw new ExcepcionDatosObligatorios("Ya existe un empleado con ese DNI.");
                     }
 
-                    double sueldo = Double.parseDouble(sueldoStr);
+                    long sueldo = Dinero.desdeTexto(sueldoStr);
                     String sexo = (String) cmbSexo.getSelectedItem();
                     String tipo = (String) cmbTipo.getSelectedItem();
 
+                    Empleado nuevo;
                     if ("Entrenador".equals(tipo)) {
                         String especialidad = (String) cmbEspecialidad.getSelectedItem();
-                        Entrenador ent = new Entrenador(nombre, apellido, dni, sexo, new java.util.Date(), sueldo,
+                        nuevo = new Entrenador(nombre, apellido, dni, sexo, new Date(), sueldo,
                                 especialidad, null);
-                        gimnasio.agregarEmpleado(ent);
                     } else {
                         String horario = txtHorario.getText().trim();
                         String sector = txtSector.getText().trim();
                         if (horario.isEmpty() || sector.isEmpty()) {
                             throw new ExcepcionDatosObligatorios("Para Limpieza, Horario y Sector son obligatorios.");
                         }
-                        Limpieza limp = new Limpieza(nombre, apellido, dni, sexo, new java.util.Date(), sueldo, horario,
+                        nuevo = new Limpieza(nombre, apellido, dni, sexo, new Date(), sueldo, horario,
                                 sector);
-                        gimnasio.agregarEmpleado(limp);
                     }
 
-                    JOptionPane.showMessageDialog(null, "Empleado agregado exitosamente.");
+                    tareas.ejecutar("Agregar empleado", () -> {
+                        gimnasio.agregarEmpleado(nuevo);
+                        return gimnasio.buscarEmpleadoPorDni(nuevo.getDni()) == nuevo;
+                    }, agregado -> JOptionPane.showMessageDialog(null,
+                            agregado ? "Empleado agregado exitosamente." : "Error: Ya existe un empleado con ese DNI."));
                     break;
 
                 } catch (NumberFormatException e) {
@@ -684,12 +906,12 @@ public class InterfazGimnasio {
     }
 
     private void eliminarEmpleadoPorDni() {
-        if (gimnasio.getEmpleados().isEmpty()) {
+        if (gimnasio.getCantidadEmpleados() == 0) {
             JOptionPane.showMessageDialog(null, "No hay empleados para eliminar.");
             return;
         }
 
-        java.util.List<Empleado> empleados = gimnasio.getEmpleados();
+        List<Empleado> empleados = gimnasio.getEmpleados();
         String[] opciones = new String[empleados.size()];
         for (int i = 0; i < empleados.size(); i++) {
             Empleado e = empleados.get(i);
@@ -712,8 +934,8 @@ public class InterfazGimnasio {
                         "¿Confirma eliminar a " + e.getNombre() + " " + e.getApellido() + "?", "Confirmar eliminación",
                         JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    gimnasio.eliminarEmpleado(e);
-                    JOptionPane.showMessageDialog(null, "Empleado eliminado.");
+                    tareas.ejecutar("Eliminar empleado", () -> gimnasio.eliminarEmpleado(e),
+                            () -> JOptionPane.showMessageDialog(null, "Empleado eliminado."));
                 }
             }
         } catch (Exception ex) {
@@ -739,7 +961,7 @@ public class InterfazGimnasio {
             String[] sexos = { "M", "F", "X" };
             JComboBox<String> cmbSexo = new JComboBox<>(sexos);
             cmbSexo.setSelectedItem(e.getSexo());
-            JTextField txtSueldo = new JTextField(String.valueOf(e.getSueldo()));
+            JTextField txtSueldo = new JTextField(Dinero.aTexto(e.getSueldo()));
 
             // Campos específicos
             JComboBox<String> cmbEspecialidad = new JComboBox<>(Gimnasio.TIPOS_CLASE);
@@ -787,7 +1009,7 @@ public class InterfazGimnasio {
                         e.setNombre(nombre);
                         e.setApellido(apellido);
                         e.setSexo((String) cmbSexo.getSelectedItem());
-                        e.setSueldo(Double.parseDouble(sueldoStr));
+                        e.setSueldo(Dinero.desdeTexto(sueldoStr));
 
                         if (e instanceof Entrenador) {
                             ((Entrenador) e).setEspecialidad((String) cmbEspecialidad.getSelectedItem());
@@ -800,8 +1022,8 @@ public class InterfazGimnasio {
                             ((Limpieza) e).setSector(sector);
                         }
 
-                        gimnasio.registrarModificacionEmpleado(e);
-                        JOptionPane.showMessageDialog(null, "Empleado actualizado exitosamente.");
+                        tareas.ejecutar("Modificar empleado", () -> gimnasio.registrarModificacionEmpleado(e),
+                                () -> JOptionPane.showMessageDialog(null, "Empleado actualizado exitosamente."));
                         break;
                     } catch (NumberFormatException ex) {
                         JOptionPane.showMessageDialog(null, "El sueldo debe ser numérico.");
@@ -822,7 +1044,7 @@ public class InterfazGimnasio {
     private void agregarClaseDesdeMenu() {
         JComboBox<String> cmbTipo = new JComboBox<>(Gimnasio.TIPOS_CLASE);
 
-        String[] diasSinDomingo = java.util.Arrays.stream(Gimnasio.DIAS_SEMANA)
+        String[] diasSinDomingo = Arrays.stream(Gimnasio.DIAS_SEMANA)
                 .filter(d -> !d.equalsIgnoreCase("Domingo"))
                 .toArray(String[]::new);
         JComboBox<String> cmbDia = new JComboBox<>(diasSinDomingo);
@@ -843,7 +1065,7 @@ public class InterfazGimnasio {
         panel.add(cmbEntrenador);
 
         // Actualizar entrenadores al cambiar tipo
-        java.awt.event.ActionListener updateTrainers = e -> {
+        ActionListener updateTrainers = e -> {
             cmbEntrenador.removeAllItems();
             String tipo = (String) cmbTipo.getSelectedItem();
             for (Empleado emp : gimnasio.getEmpleados()) {
@@ -889,11 +1111,13 @@ public class InterfazGimnasio {
                     Entrenador entrenador = (Entrenador) gimnasio.buscarEmpleadoPorDni(dniEnt);
 
                     Clase nueva = new Clase(tipo, dia, turno, cupo, entrenador);
-                    gimnasio.agregarClase(nueva);
-                    entrenador.asignarClase(nueva);
-                    actualizarGrilla();
-
-                    JOptionPane.showMessageDialog(null, "Clase agregada exitosamente.");
+                    tareas.ejecutar("Agregar clase", () -> {
+                        gimnasio.agregarClase(nueva);
+                        entrenador.asignarClase(nueva);
+                    }, () -> {
+                        actualizarGrilla();
+                        JOptionPane.showMessageDialog(null, "Clase agregada exitosamente.");
+                    });
                     break;
 
                 } catch (NumberFormatException e) {
@@ -910,7 +1134,7 @@ public class InterfazGimnasio {
     }
 
     private void eliminarClaseSeleccion() {
-        if (gimnasio.getClases().isEmpty()) {
+        if (gimnasio.getCantidadClases() == 0) {
             JOptionPane.showMessageDialog(null, "No hay clases para eliminar.");
             return;
         }
@@ -939,14 +1163,108 @@ public class InterfazGimnasio {
                 "¿Confirma eliminar la clase " + claseAEliminar.getNombre() + " (" + claseAEliminar.getHorario() + ")?",
                 "Confirmar eliminación", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            gimnasio.eliminarClase(claseAEliminar);
-            actualizarGrilla();
-            JOptionPane.showMessageDialog(null, "Clase eliminada.");
+            Clase elegida = claseAEliminar;
+            tareas.ejecutar("Eliminar clase", () -> gimnasio.eliminarClase(elegida), () -> {
+                actualizarGrilla();
+                JOptionPane.showMessageDialog(null, "Clase eliminada.");
+            });
+        }
+    }
+
+    private void inscribirSocioEnClaseDesdeMenu() {
+        if (gimnasio.getCantidadClases() == 0) {
+            JOptionPane.showMessageDialog(null, "No hay clases cargadas.");
+            return;
+        }
+        Socio socio = pedirSocioPorDni();
+        if (socio == null)
+            return;
+        Clase clase = seleccionarClase(gimnasio.getClases(), "Seleccione la clase:", "Inscribir socio");
+        if (clase == null)
+            return;
+        tareas.ejecutar("Inscribir socio", () -> gimnasio.inscribirEnClase(socio, clase),
+                resultado -> informarInscripcion(resultado, clase));
+    }
+
+    private void informarInscripcion(Clase.ResultadoInscripcion resultado, Clase clase) {
+        switch (resultado) {
+            case INSCRIPTO:
+                JOptionPane.showMessageDialog(null, "Socio inscripto en " + clase.getNombre() + ".");
+                break;
+            case EN_ESPERA:
+                JOptionPane.showMessageDialog(null, "La clase no tiene cupo. El socio quedó en lista de espera (puesto "
+                        + clase.getListaEspera().size() + ").");
+                break;
+            case YA_INSCRIPTO:
+                JOptionPane.showMessageDialog(null, "El socio ya está inscripto en esa clase.");
+                break;
+            case YA_EN_ESPERA:
+                JOptionPane.showMessageDialog(null, "El socio ya está en la lista de espera de esa clase.");
+                break;
+            default:
+                JOptionPane.showMessageDialog(null, "No se pudo inscribir al socio.");
+        }
+    }
+
+    private void cancelarInscripcionDesdeMenu() {
+        Socio socio = pedirSocioPorDni();
+        if (socio == null)
+            return;
+        // Clases en las que está inscripto o esperando
+        List<Clase> suyas = new ArrayList<>();
+        for (Clase c : gimnasio.getClases()) {
+            if (c.estaInscripto(socio.getDni()) || c.estaEnEspera(socio.getDni()))
+                suyas.add(c);
+        }
+        if (suyas.isEmpty()) {
+            JOptionPane.showMessageDialog(null, "El socio no está inscripto en ninguna clase.");
+            return;
+        }
+        Clase clase = seleccionarClase(suyas, "Seleccione la clase a cancelar:", "Cancelar inscripción");
+        if (clase == null)
+            return;
+        tareas.ejecutar("Cancelar inscripción", () -> gimnasio.cancelarInscripcion(socio, clase),
+                cancelada -> JOptionPane.showMessageDialog(null,
+                        cancelada ? "Inscripción cancelada." : "No se pudo cancelar la inscripción."));
+    }
+
+    /** Pide un DNI y retorna el socio, o null (informando) si no existe. */
+    private Socio pedirSocioPorDni() {
+        String dniTexto = JOptionPane.showInputDialog(null, "Ingrese el DNI del socio:");
+        if (dniTexto == null)
+            return null;
+        try {
+            Socio socio = gimnasio.buscarSocioPorDni(Integer.parseInt(dniTexto.trim()));
+            if (socio == null)
+                JOptionPane.showMessageDialog(null, "No se encontró un socio con ese DNI.");
+            return socio;
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(null, "El DNI debe ser numérico.");
+            return null;
+        }
+    }
+
+    /** Muestra las clases (con su cupo) para elegir una; null si se cancela. */
+    private Clase seleccionarClase(List<Clase> clases, String mensaje, String titulo) {
+        String[] opciones = new String[clases.size()];
+        for (int i = 0; i < clases.size(); i++) {
+            Clase c = clases.get(i);
+            opciones[i] = (i + 1) + ". " + c.getNombre() + " - " + c.getHorario() + " (" + c.getLugaresDisponibles()
+                    + " lugares libres)";
+        }
+        String seleccionado = (String) JOptionPane.showInputDialog(null, mensaje, titulo,
+                JOptionPane.QUESTION_MESSAGE, null, opciones, opciones[0]);
+        if (seleccionado == null)
+            return null;
+        for (int i = 0; i < opciones.length; i++) {
+            if (opciones[i].equals(seleccionado))
+                return clases.get(i);
         }
+        return null;
     }
 
     private void gestionarPagoSocio() {
-        if (gimnasio.getSocios().isEmpty()) {
+        if (gimnasio.getCantidadSocios() == 0) {
             JOptionPane.showMessageDialog(null, "No hay socios cargados en el sistema.");
             return;
         }
@@ -960,43 +1278,30 @@ public class InterfazGimnasio {
                 JOptionPane.showMessageDialog(null, "No se encontró un socio con ese DNI.");
                 return;
             }
-            String[] opcionesPago = {
-                    "1 mes - $35000",
-                    "3 meses - $100000",
-                    "6 meses - $550000",
-                    "12 meses - $1100000"
-            };
+            CatalogoPlanes catalogo = CatalogoPlanes.porDefecto();
+            int[] duraciones = catalogo.getMeses();
+            String[] opcionesPago = new String[duraciones.length];
+            for (int i = 0; i < duraciones.length; i++) {
+                opcionesPago[i] = catalogo.descripcion(duraciones[i]);
+            }
             String elegidoPago = (String) JOptionPane.showInputDialog(null, "Seleccione el plan a comprar:",
                     "Pago de cuota", JOptionPane.QUESTION_MESSAGE, null, opcionesPago, opcionesPago[0]);
             if (elegidoPago == null)
                 return;
-            int meses = 1;
-            double monto = 35000;
-            if (elegidoPago.startsWith("3")) {
-                meses = 3;
-                monto = 100000;
-            } else if (elegidoPago.startsWith("6")) {
-                meses = 6;
-                monto = 550000;
-            } else if (elegidoPago.startsWith("12")) {
-                meses = 12;
-                monto = 1100000;
-            }
+            int meses = Integer.parseInt(elegidoPago.split(" ")[0]);
+            long monto = catalogo.precio(meses);
             socio.setPlanMeses(meses);
             socio.setPlan(meses + " meses");
-            boolean pagoOk = gimnasio.registrarPagoSocio(socio, monto);
-            if (pagoOk) {
-                JOptionPane.showMessageDialog(null, "El pago se registró correctamente.");
-            } else {
-                JOptionPane.showMessageDialog(null, "No se pudo registrar el pago. Verifique los datos o saldo.");
-            }
+            tareas.ejecutar("Pago de cuota", () -> gimnasio.registrarPagoSocio(socio, monto),
+                    pagoOk -> JOptionPane.showMessageDialog(null, pagoOk ? "El pago se registró correctamente."
+                            : "No se pudo registrar el pago. Verifique los datos o saldo."));
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(null, "Los datos ingresados no son válidos.");
         }
     }
 
     private void pagarSueldoEmpleadoDesdeMenu() {
-        if (gimnasio.getEmpleados().isEmpty()) {
+        if (gimnasio.getCantidadEmpleados() == 0) {
             JOptionPane.showMessageDialog(null, "No hay empleados cargados.");
             return;
         }
@@ -1006,7 +1311,7 @@ public class InterfazGimnasio {
             return;
         }
 
-        java.util.List<Empleado> empleados = gimnasio.getEmpleados();
+        List<Empleado> empleados = gimnasio.getEmpleados();
         String[] opciones = new String[empleados.size()];
         for (int i = 0; i < empleados.size(); i++) {
             Empleado e = empleados.get(i);
@@ -1026,18 +1331,103 @@ public class InterfazGimnasio {
 
             if (e != null) {
                 // Usar registrarPagoSueldo para que se guarde en registros.txt
-                boolean pagado = gimnasio.registrarPagoSueldo(e);
-                if (pagado) {
-                    JOptionPane.showMessageDialog(null, "Sueldo pagado a " + e.getNombre() + " " + e.getApellido());
-                } else {
-                    JOptionPane.showMessageDialog(null, "No se pudo pagar el sueldo. Fondos insuficientes.");
-                }
+                tareas.ejecutar("Pago de sueldo", () -> gimnasio.registrarPagoSueldo(e),
+                        pagado -> JOptionPane.showMessageDialog(null,
+                                pagado ? "Sueldo pagado a " + e.getNombre() + " " + e.getApellido()
+                                        : "No se pudo pagar el sueldo. Fondos insuficientes."));
             }
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(null, "Error al procesar la selección.");
         }
     }
 
+    /**
+     * Paga el sueldo a todos los empleados, o solo a entrenadores o a personal
+     * de limpieza, en una sola operación y muestra el resumen.
+     */
+    private void liquidarSueldosDesdeMenu() {
+        if (gimnasio.getCantidadEmpleados() == 0) {
+            JOptionPane.showMessageDialog(null, "No hay empleados cargados.");
+            return;
+        }
+        String[] alcances = { "Todos los empleados", "Solo entrenadores", "Solo personal de limpieza" };
+        String alcance = (String) JOptionPane.showInputDialog(null, "¿A quiénes se les paga el sueldo?",
+                "Liquidar sueldos", JOptionPane.QUESTION_MESSAGE, null, alcances, alcances[0]);
+        if (alcance == null) {
+            return;
+        }
+        Predicate<Empleado> filtro;
+        if (alcance.equals(alcances[1])) {
+            filtro = e -> e instanceof Entrenador;
+        } else if (alcance.equals(alcances[2])) {
+            filtro = e -> e instanceof Limpieza;
+        } else {
+            filtro = e -> true;
+        }
+        tareas.ejecutar("Liquidar sueldos", () -> new LiquidacionSueldos(gimnasio).pagar(filtro),
+                this::mostrarLiquidacion);
+    }
+
+    private void mostrarLiquidacion(LiquidacionSueldos.Resultado r) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Empleados pagados: ").append(r.getPagados().size()).append("\n");
+        sb.append("Total pagado: $").append(Dinero.aTexto(r.getTotalPagado())).append("\n");
+        sb.append("Saldo actual: $").append(Dinero.aTexto(r.getSaldoFinal())).append("\n");
+        if (!r.getFallidos().isEmpty()) {
+            sb.append("No se pudo pagar a:\n");
+            for (String f : r.getFallidos()) {
+                sb.append("  ").append(f).append("\n");
+            }
+        }
+        JOptionPane.showMessageDialog(null, sb.toString(), "Liquidación de sueldos",
+                r.getFallidos().isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+
+    /**
+     * Cobra la cuota a todos los socios cuyo plan vence entre hoy y la cantidad
+     * de días indicada, y muestra el resumen.
+     */
+    private void facturarCuotasDesdeMenu() {
+        String diasTexto = JOptionPane.showInputDialog(null,
+                "Cobrar los planes que vencen en los próximos días:", "7");
+        if (diasTexto == null) {
+            return;
+        }
+        int dias;
+        try {
+            dias = Integer.parseInt(diasTexto.trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(null, "Ingrese una cantidad de días válida.");
+            return;
+        }
+        Calendar desde = Calendar.getInstance();
+        desde.set(Calendar.HOUR_OF_DAY, 0);
+        desde.set(Calendar.MINUTE, 0);
+        desde.set(Calendar.SECOND, 0);
+        desde.set(Calendar.MILLISECOND, 0);
+        Calendar hasta = (Calendar) desde.clone();
+        hasta.add(Calendar.DAY_OF_MONTH, Math.max(1, dias + 1));
+        tareas.ejecutar("Facturar cuotas",
+                () -> new MotorFacturacion(gimnasio).facturar(desde.getTime(), hasta.getTime()),
+                this::mostrarFacturacion);
+    }
+
+    private void mostrarFacturacion(MotorFacturacion.Resultado r) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Planes por vencer: ").append(r.getEvaluados()).append("\n");
+        sb.append("Cuotas cobradas: ").append(r.getCobrados()).append("\n");
+        sb.append("Total cobrado: $").append(Dinero.aTexto(r.getTotalCobrado())).append("\n");
+        if (r.getFallidos() > 0) {
+            sb.append("No se pudo cobrar a ").append(r.getFallidos()).append(":\n");
+            List<String> fallidos = r.getPrimerosFallidos();
+            for (int i = 0; i < Math.min(10, fallidos.size()); i++) {
+                sb.append("  ").append(fallidos.get(i)).append("\n");
+            }
+        }
+        JOptionPane.showMessageDialog(null, sb.toString(), "Facturación de cuotas",
+                r.getFallidos() == 0 ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+
     private void mostrarMovimientosCuentaDialog() {
         CuentaBancaria cuenta = gimnasio.getCuenta();
         if (cuenta == null) {
@@ -1062,20 +1452,14 @@ public class InterfazGimnasio {
         top.add(cbAño);
         top.add(btnFiltrar);
         dialog.add(top, BorderLayout.NORTH);
-        DefaultTableModel modeloTabla = new DefaultTableModel(new Object[] { "Fecha", "Tipo", "Descripción", "Monto" },
-                0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Las filas se formatean recién cuando la tabla las muestra
+        ModeloTablaMovimientos modeloTabla = new ModeloTablaMovimientos();
         JTable tabla = new JTable(modeloTabla);
         JScrollPane scroll = new JScrollPane(tabla);
         dialog.add(scroll, BorderLayout.CENTER);
         JLabel lblResumen = new JLabel(" ");
         dialog.add(lblResumen, BorderLayout.SOUTH);
         Runnable poblarTabla = () -> {
-            modeloTabla.setRowCount(0);
             int mesSel = cbMes.getSelectedIndex(); // 0 = Todos
             String añoStr = (String) cbAño.getSelectedItem();
             int añoSel = 0;
@@ -1086,38 +1470,24 @@ public class InterfazGimnasio {
                     añoSel = 0;
                 }
             }
-            List<Registro> lista = new ArrayList<>();
-            if (mesSel == 0 && añoSel == 0) {
-                lista.addAll(cuenta.getMovimientos());
-            } else if (mesSel == 0) {
-                lista.addAll(cuenta.getMovimientosPorMes(0, añoSel));
-            } else if (añoSel == 0) {
-                for (Registro r : cuenta.getMovimientos()) {
-                    Calendar cal = Calendar.getInstance();
-                    if (r.getFecha() == null)
-                        continue;
-                    cal.setTime(r.getFecha());
-                    int m = cal.get(Calendar.MONTH) + 1;
-                    if (m == mesSel)
-                        lista.add(r);
-                }
-            } else {
-                lista.addAll(cuenta.getMovimientosPorMes(mesSel, añoSel));
-            }
-            double totalHaber = 0.0, totalDebe = 0.0;
-            SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-            for (Registro r : lista) {
-                String fecha = r.getFecha() != null ? sdf.format(r.getFecha()) : "";
-                modeloTabla.addRow(new Object[] { fecha, r.getTipo(), r.getDescripcion(), r.getMonto() });
-                if ("HABER".equalsIgnoreCase(r.getTipo())) {
-                    totalHaber += r.getMonto();
-                } else if ("DEBE".equalsIgnoreCase(r.getTipo())) {
-                    totalDebe += r.getMonto();
-                }
-            }
-            double neto = totalHaber - totalDebe;
-            lblResumen.setText(
-                    String.format("Total HABER: $%.2f   Total DEBE: $%.2f   Neto: $%.2f", totalHaber, totalDebe, neto));
+            int año = añoSel;
+            btnFiltrar.setEnabled(false);
+            lblResumen.setText("Buscando movimientos...");
+            // La vista no copia los movimientos y los totales ya están acumulados por
+            // período; la consulta igual pasa por la cola para ver las operaciones
+            // pendientes, y los totales se toman en la misma tarea que la vista
+            tareas.ejecutar("Movimientos de la cuenta",
+                    () -> ModeloTablaMovimientos.Periodo.consultar(cuenta, mesSel, año), periodo -> {
+                List<Registro> vista = periodo.getMovimientos();
+                long[] resumen = periodo.getResumen();
+                modeloTabla.setMovimientos(vista);
+                lblResumen.setText(vista.size() + " movimientos   Total HABER: $" + Dinero.aTexto(resumen[0])
+                        + "   Total DEBE: $" + Dinero.aTexto(resumen[1]) + "   Neto: $" + Dinero.aTexto(resumen[2]));
+                btnFiltrar.setEnabled(true);
+            }, ex -> {
+                lblResumen.setText("No se pudieron obtener los movimientos: " + ex.getMessage());
+                btnFiltrar.setEnabled(true);
+            });
         };
         btnFiltrar.addActionListener(e -> poblarTabla.run());
         poblarTabla.run();
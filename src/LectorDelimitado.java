@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Lector de archivos de texto delimitados (registros, socios, empleados y
+ * clases). Lee el archivo por bloques con FileChannel.read sobre un único
+ * arreglo de bytes reutilizable, recorre las líneas buscando los separadores
+ * directamente en el bloque y decodifica enteros, montos y fechas sin crear
+ * Strings intermedios; solo los campos de texto se convierten a String cuando
+ * se piden.
+ *
+ * El archivo no se mapea en memoria: un mapeo queda vivo hasta que el GC
+ * libera el buffer, y mientras tanto Windows no deja reemplazar ni borrar el
+ * archivo (la compactación lo reemplaza y borra el delta). Al cerrar el
+ * lector no queda nada abierto sobre el archivo.
+ *
+ * Uso típico:
+ *
+ * <pre>
+ * try (LectorDelimitado lector = new LectorDelimitado(ruta, ';')) {
+ *     while (lector.siguienteLinea()) {
+ *         int dni = lector.campoEntero(0);
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public class LectorDelimitado implements AutoCloseable {
+
+    // Tamaño del bloque de lectura; si una línea no entra, el bloque se agranda
+    private static final int TAMANIO_BLOQUE = 1 << 20;
+
+    private final FileChannel canal;
+    private final byte separador;
+    private final TimeZone zona = TimeZone.getDefault();
+
+    // Bloque leído del archivo: los bytes válidos van de 0 a limite
+    private byte[] bloque;
+    private int limite;
+    private boolean finArchivo;
+    private int posicion;
+    private long numeroLinea;
+
+    // Límites de la línea actual y de sus campos (relativos al bloque)
+    private int inicioLinea;
+    private int finLinea;
+    private int cantidadCampos;
+    private int[] iniciosCampo = new int[16];
+    private int[] finesCampo = new int[16];
+
+    public LectorDelimitado(String ruta, char separador) throws IOException {
+        this.canal = FileChannel.open(Paths.get(ruta), StandardOpenOption.READ);
+        this.separador = (byte) separador;
+        this.bloque = new byte[(int) Math.max(16, Math.min(TAMANIO_BLOQUE, canal.size() + 1))];
+    }
+
+    /**
+     * Pasa al comienzo del bloque lo que falta recorrer (la línea cortada) y
+     * completa el resto del bloque con lo que sigue del archivo.
+     */
+    private void leerBloque() throws IOException {
+        int pendientes = limite - posicion;
+        if (posicion == 0 && limite == bloque.length) {
+            // Una sola línea ocupa todo el bloque
+            bloque = Arrays.copyOf(bloque, bloque.length * 2);
+        } else {
+            System.arraycopy(bloque, posicion, bloque, 0, pendientes);
+        }
+        posicion = 0;
+        ByteBuffer destino = ByteBuffer.wrap(bloque, pendientes, bloque.length - pendientes);
+        while (destino.hasRemaining()) {
+            if (canal.read(destino) < 0) {
+                finArchivo = true;
+                break;
+            }
+        }
+        limite = destino.position();
+    }
+
+    /**
+     * Avanza a la siguiente línea no vacía y separa sus campos. Retorna false al
+     * llegar al final del archivo.
+     */
+    public boolean siguienteLinea() throws IOException {
+        while (true) {
+            int fin = buscarFinDeLinea(posicion);
+            if (fin < 0) {
+                // La línea quedó cortada por el final del bloque
+                if (!finArchivo) {
+                    leerBloque();
+                    continue;
+                }
+                if (posicion >= limite)
+                    return false;
+                fin = limite; // última línea sin salto final
+            }
+            inicioLinea = posicion;
+            finLinea = fin;
+            posicion = fin + 1;
+            numeroLinea++;
+            if (finLinea > inicioLinea && bloque[finLinea - 1] == '\r') {
+                finLinea--;
+            }
+            if (!esLineaVacia()) {
+                separarCampos();
+                return true;
+            }
+        }
+    }
+
+    private int buscarFinDeLinea(int desde) {
+        for (int i = desde; i < limite; i++) {
+            if (bloque[i] == '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    private boolean esLineaVacia() {
+        for (int i = inicioLinea; i < finLinea; i++) {
+            byte b = bloque[i];
+            if (b != ' ' && b != '\t')
+                return false;
+        }
+        return true;
+    }
+
+    private void separarCampos() {
+        cantidadCampos = 0;
+        int inicio = inicioLinea;
+        for (int i = inicioLinea; i <= finLinea; i++) {
+            if (i == finLinea || bloque[i] == separador) {
+                if (cantidadCampos == iniciosCampo.length) {
+                    iniciosCampo = Arrays.copyOf(iniciosCampo, cantidadCampos * 2);
+                    finesCampo = Arrays.copyOf(finesCampo, cantidadCampos * 2);
+                }
+                iniciosCampo[cantidadCampos] = inicio;
+                finesCampo[cantidadCampos] = i;
+                cantidadCampos++;
+                inicio = i + 1;
+            }
+        }
+    }
+
+    /** Número (desde 1) de la línea actual en el archivo, contando las vacías. */
+    public long numeroLinea() {
+        return numeroLinea;
+    }
+
+    public int cantidadCampos() {
+        return cantidadCampos;
+    }
+
+    /** Indica si la línea actual comienza con el prefijo (ASCII). */
+    public boolean empiezaCon(String prefijo) {
+        int largo = prefijo.length();
+        if (finLinea - inicioLinea < largo)
+            return false;
+        for (int i = 0; i < largo; i++) {
+            if (bloque[inicioLinea + i] != (byte) prefijo.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /** Indica si el campo es exactamente igual al literal (ASCII). */
+    public boolean campoEs(int campo, String literal) {
+        int inicio = iniciosCampo[campo];
+        int largo = finesCampo[campo] - inicio;
+        if (largo != literal.length())
+            return false;
+        for (int i = 0; i < largo; i++) {
+            if (bloque[inicio + i] != (byte) literal.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /** Decodifica el campo como entero (admite signo). */
+    public int campoEntero(int campo) {
+        int i = iniciosCampo[campo];
+        int fin = finesCampo[campo];
+        boolean negativo = false;
+        if (i < fin && (bloque[i] == '-' || bloque[i] == '+')) {
+            negativo = bloque[i] == '-';
+            i++;
+        }
+        if (i >= fin)
+            throw new NumberFormatException("Campo numérico vacío: " + lineaActual());
+        long valor = 0;
+        for (; i < fin; i++) {
+            int d = bloque[i] - '0';
+            if (d < 0 || d > 9)
+                throw new NumberFormatException("Entero inválido: " + lineaActual());
+            valor = valor * 10 + d;
+            if (valor > Integer.MAX_VALUE + 1L)
+                throw new NumberFormatException("Entero fuera de rango: " + lineaActual());
+        }
+        return (int) (negativo ? -valor : valor);
+    }
+
+    /**
+     * Decodifica un monto en pesos del tipo 1660000.0 o 1234.56 directamente en
+     * centavos, acumulando los dígitos como entero. Los decimales más allá del
+     * centavo se redondean; los formatos poco comunes (exponente, etc.) se
+     * delegan a Dinero.desdeTexto().
+     */
+    public long campoCentavos(int campo) {
+        int i = iniciosCampo[campo];
+        int fin = finesCampo[campo];
+        boolean negativo = false;
+        if (i < fin && (bloque[i] == '-' || bloque[i] == '+')) {
+            negativo = bloque[i] == '-';
+            i++;
+        }
+        long centavos = 0;
+        int decimales = -1;
+        int digitos = 0;
+        for (; i < fin; i++) {
+            byte b = bloque[i];
+            if (b == '.' && decimales < 0) {
+                decimales = 0;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9 || digitos >= 16)
+                return Dinero.desdeTexto(campoTexto(campo));
+            digitos++;
+            if (decimales < 0) {
+                centavos = centavos * 10 + d;
+            } else if (decimales < 2) {
+                centavos = centavos * 10 + d;
+                decimales++;
+            } else if (decimales == 2) {
+                if (d >= 5)
+                    centavos++; // redondeo al centavo más cercano
+                decimales++;
+            }
+        }
+        if (digitos == 0)
+            throw new NumberFormatException("Monto inválido: " + lineaActual());
+        for (int faltan = 2 - Math.max(decimales, 0); faltan > 0; faltan--) {
+            centavos *= 10;
+        }
+        return negativo ? -centavos : centavos;
+    }
+
+    /** Decodifica una fecha dd/MM/yyyy (hora local 00:00) en milisegundos. */
+    public long campoFecha(int campo) {
+        int i = iniciosCampo[campo];
+        if (finesCampo[campo] - i != 10 || bloque[i + 2] != '/' || bloque[i + 5] != '/')
+            throw new IllegalArgumentException("Fecha inválida: " + lineaActual());
+        return aMilisegundos(digitos(i + 6, 4), digitos(i + 3, 2), digitos(i, 2), 0, 0, 0);
+    }
+
+    /** Decodifica una fecha dd/MM/yyyy HH:mm:ss (hora local) en milisegundos. */
+    public long campoFechaHora(int campo) {
+        int i = iniciosCampo[campo];
+        if (finesCampo[campo] - i != 19 || bloque[i + 2] != '/' || bloque[i + 5] != '/'
+                || bloque[i + 13] != ':' || bloque[i + 16] != ':')
+            throw new IllegalArgumentException("Fecha inválida: " + lineaActual());
+        return aMilisegundos(digitos(i + 6, 4), digitos(i + 3, 2), digitos(i, 2),
+                digitos(i + 11, 2), digitos(i + 14, 2), digitos(i + 17, 2));
+    }
+
+    private int digitos(int desde, int cantidad) {
+        int valor = 0;
+        for (int i = desde; i < desde + cantidad; i++) {
+            int d = bloque[i] - '0';
+            if (d < 0 || d > 9)
+                throw new IllegalArgumentException("Fecha inválida: " + lineaActual());
+            valor = valor * 10 + d;
+        }
+        return valor;
+    }
+
+    private long aMilisegundos(int anio, int mes, int dia, int hora, int minuto, int segundo) {
+        if (mes < 1 || mes > 12 || dia < 1 || dia > 31 || hora > 23 || minuto > 59 || segundo > 59)
+            throw new IllegalArgumentException("Fecha inválida: " + lineaActual());
+        long local = (diasDesdeEpoca(anio, mes, dia) * 86_400L + hora * 3_600L + minuto * 60L + segundo) * 1000L;
+        // Pasar de hora local a UTC con el desplazamiento vigente en esa fecha
+        return local - zona.getOffset(local - zona.getRawOffset());
+    }
+
+    /** Días desde 1970-01-01 en el calendario gregoriano proléptico. */
+    private static long diasDesdeEpoca(int anio, int mes, int dia) {
+        long y = mes <= 2 ? anio - 1 : anio;
+        long era = Math.floorDiv(y, 400);
+        long anioDeEra = y - era * 400;
+        long diaDelAnio = (153L * (mes + (mes > 2 ? -3 : 9)) + 2) / 5 + dia - 1;
+        long diaDeEra = anioDeEra * 365 + anioDeEra / 4 - anioDeEra / 100 + diaDelAnio;
+        return era * 146_097 + diaDeEra - 719_468;
+    }
+
+    /** Decodifica el campo como texto UTF-8. */
+    public String campoTexto(int campo) {
+        return texto(iniciosCampo[campo], finesCampo[campo]);
+    }
+
+    /** Texto completo de la línea actual (para cabeceras y mensajes de error). */
+    public String lineaActual() {
+        return texto(inicioLinea, finLinea);
+    }
+
+    private String texto(int inicio, int fin) {
+        return new String(bloque, inicio, fin - inicio, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
@@ -10,7 +10,7 @@ public class Limpieza extends Empleado {
     private String sector;
 
     public Limpieza(String nombre, String apellido, int dni, String sexo,
-            Date fechaNacimiento, double sueldo,
+            Date fechaNacimiento, long sueldo,
             String horarioTrabajo, String sector) {
         super(nombre, apellido, dni, sexo, fechaNacimiento, sueldo);
         this.horarioTrabajo = horarioTrabajo;
@@ -20,7 +20,7 @@ public class Limpieza extends Empleado {
     @Override
     public String toCSV() {
         // tipo;dni;nombre;apellido;sexo;sueldo;horario;sector
-        return "Limpieza;" + getDni() + ";" + getNombre() + ";" + getApellido() + ";" + getSexo() + ";" + getSueldo()
+        return "Limpieza;" + getDni() + ";" + getNombre() + ";" + getApellido() + ";" + getSexo() + ";" + Dinero.aTexto(getSueldo())
                 + ";" + horarioTrabajo + ";" + sector;
     }
 
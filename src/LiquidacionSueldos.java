@@ -0,0 +1,162 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Liquidación de sueldos: paga en una sola operación a todos los empleados (o
+ * a los que cumplan un filtro).
+ *
+ * Antes de pagar se suma el total de los sueldos y se verifica contra el saldo
+ * de la cuenta del gimnasio; el total se descuenta en un único paso atómico,
+ * de modo que si no alcanza no se le paga a nadie. Los movimientos DEBE de
+ * todos los pagos se anexan juntos al historial y la cabecera se guarda una
+ * sola vez, en lugar de una vez por empleado.
+ *
+ * Como el pago individual (Gimnasio.registrarPagoSueldo), la liquidación toma
+ * los candados de las franjas de los empleados que paga, así ninguno se da de
+ * baja a mitad del pago.
+ */
+public class LiquidacionSueldos {
+
+    /** Resumen de una liquidación. */
+    public static class Resultado {
+        private final List<Empleado> pagados = new ArrayList<>();
+        private final List<String> fallidos = new ArrayList<>();
+        private long totalPagado;
+        private long saldoFinal;
+
+        public List<Empleado> getPagados() {
+            return Collections.unmodifiableList(pagados);
+        }
+
+        /** Empleados a los que no se pagó, como "DNI - Nombre Apellido: motivo". */
+        public List<String> getFallidos() {
+            return Collections.unmodifiableList(fallidos);
+        }
+
+        /** Total pagado en centavos. */
+        public long getTotalPagado() {
+            return totalPagado;
+        }
+
+        /** Saldo de la cuenta al terminar, en centavos. */
+        public long getSaldoFinal() {
+            return saldoFinal;
+        }
+
+        @Override
+        public String toString() {
+            return "Resultado{" +
+                    "pagados=" + pagados.size() +
+                    ", fallidos=" + fallidos.size() +
+                    ", totalPagado=" + Dinero.aTexto(totalPagado) +
+                    ", saldoFinal=" + Dinero.aTexto(saldoFinal) +
+                    '}';
+        }
+    }
+
+    private static final Metricas.Temporizador TIEMPO_LIQUIDACION = Metricas.temporizador("pago.liquidacion");
+    private static final Metricas.Contador SUELDOS_LIQUIDADOS = Metricas.contador("pago.liquidacion.sueldos");
+    private static final Metricas.Contador LIQUIDACIONES_RECHAZADAS = Metricas
+            .contador("pago.liquidacion.rechazadas");
+
+    private final Gimnasio gimnasio;
+
+    public LiquidacionSueldos(Gimnasio gimnasio) {
+        this.gimnasio = gimnasio;
+    }
+
+    /** Paga el sueldo a todos los empleados del gimnasio. */
+    public Resultado pagarTodos() {
+        return pagar(e -> true);
+    }
+
+    /** Paga el sueldo a los empleados que cumplan el filtro. */
+    public Resultado pagar(Predicate<Empleado> filtro) {
+        long inicio = TIEMPO_LIQUIDACION.iniciar();
+        try {
+            return liquidar(filtro);
+        } finally {
+            TIEMPO_LIQUIDACION.detener(inicio);
+        }
+    }
+
+    private Resultado liquidar(Predicate<Empleado> filtro) {
+        Resultado resultado = new Resultado();
+        CuentaBancaria cuenta = gimnasio.getCuenta();
+        List<Empleado> aPagar = new ArrayList<>();
+        for (Empleado e : gimnasio.getEmpleados()) {
+            if (!filtro.test(e)) {
+                continue;
+            }
+            if (e.getSueldo() <= 0) {
+                resultado.fallidos.add(detalle(e, "sin sueldo asignado"));
+            } else {
+                aPagar.add(e);
+            }
+        }
+        if (cuenta == null) {
+            for (Empleado e : aPagar) {
+                resultado.fallidos.add(detalle(e, "no hay cuenta bancaria del gimnasio"));
+            }
+            return resultado;
+        }
+        if (aPagar.isEmpty()) {
+            resultado.saldoFinal = cuenta.getSaldo();
+            return resultado;
+        }
+        return gimnasio.conCandadosEmpleados(aPagar, () -> pagarBajoCandados(cuenta, aPagar, resultado));
+    }
+
+    private Resultado pagarBajoCandados(CuentaBancaria cuenta, List<Empleado> candidatos, Resultado resultado) {
+        // Los que se dieron de baja desde que se armó la lista ya no cobran
+        List<Empleado> aPagar = new ArrayList<>(candidatos.size());
+        for (Empleado e : candidatos) {
+            if (gimnasio.empleadosPorDni.obtener(e.getDni()) == e) {
+                aPagar.add(e);
+            } else {
+                resultado.fallidos.add(detalle(e, "ya no es empleado del gimnasio"));
+            }
+        }
+        if (aPagar.isEmpty()) {
+            resultado.saldoFinal = cuenta.getSaldo();
+            return resultado;
+        }
+
+        // Los sueldos se leen una sola vez, así el total verificado coincide con
+        // lo que se registra aunque alguien modifique un sueldo mientras tanto
+        long[] montos = new long[aPagar.size()];
+        List<String> descripcionesCuenta = new ArrayList<>(aPagar.size());
+        List<String> descripcionesHistorial = new ArrayList<>(aPagar.size());
+        long total = 0;
+        for (int i = 0; i < montos.length; i++) {
+            Empleado e = aPagar.get(i);
+            montos[i] = e.getSueldo();
+            total += montos[i];
+            descripcionesCuenta.add(e.descripcionPagoSueldo());
+            descripcionesHistorial.add("Pago de sueldo a " + e.getNombre() + " " + e.getApellido());
+        }
+
+        if (!cuenta.extraerEnLote(montos, descripcionesCuenta, aPagar)) {
+            String motivo = "fondos insuficientes (total " + Dinero.aTexto(total) + ", saldo "
+                    + Dinero.aTexto(cuenta.getSaldo()) + ")";
+            for (Empleado e : aPagar) {
+                resultado.fallidos.add(detalle(e, motivo));
+            }
+            LIQUIDACIONES_RECHAZADAS.incrementar();
+            resultado.saldoFinal = cuenta.getSaldo();
+            return resultado;
+        }
+        gimnasio.registrarMovimientos("DEBE", descripcionesHistorial, montos, null, aPagar);
+        SUELDOS_LIQUIDADOS.sumar(aPagar.size());
+        resultado.pagados.addAll(aPagar);
+        resultado.totalPagado = total;
+        resultado.saldoFinal = cuenta.getSaldo();
+        return resultado;
+    }
+
+    private static String detalle(Empleado e, String motivo) {
+        return e.getDni() + " - " + e.getNombre() + " " + e.getApellido() + ": " + motivo;
+    }
+}
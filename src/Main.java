@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 public class Main {
     public static void main(String[] args) {
         System.out.println("Main iniciado");
@@ -5,11 +7,35 @@ public class Main {
             // Inicializar gimnasio vacío
             Gimnasio gimnasio = new Gimnasio("Gimnasio Olavarría", 123456789, "San Martín 123", "Buenos Aires");
 
+            // Métricas visibles por JMX (jconsole/VisualVM) desde el arranque
+            Metricas.publicarEnJmx();
+
             // Cargar datos persistidos
             gimnasio.cargarDatos();
+            System.out.println("Tiempos de carga (ms): " + gimnasio.getTiemposCarga());
 
-            // Iniciar la interfaz gráfica principal
+            // Persistir en segundo plano para no bloquear la interfaz con el disco
+            gimnasio.iniciarEscrituraAsincrona(50, 500);
             InterfazGimnasio interfaz = new InterfazGimnasio(gimnasio);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                // Las operaciones de la interfaz terminan antes de tomar la instantánea
+                boolean terminaron = interfaz.detenerTareas(30_000);
+                if (!terminaron) {
+                    System.err.println("Hay operaciones que no terminaron; no se guarda la instantánea");
+                }
+                EscritorAsincrono escritor = gimnasio.getEscritor();
+                gimnasio.cerrar(terminaron);
+                if (escritor != null) {
+                    System.out.println("Persistencia: " + escritor);
+                }
+                try {
+                    Metricas.volcar("datos/metricas.txt");
+                } catch (IOException e) {
+                    System.err.println("Error guardando métricas: " + e.getMessage());
+                }
+            }));
+
+            // Iniciar la interfaz gráfica principal
             interfaz.mostrarInterfazPrincipal();
             System.out.println("Main finalizado correctamente");
         } catch (Throwable t) {
@@ -0,0 +1,285 @@
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Mapa de claves int (por ejemplo DNI) a objetos, con direccionamiento abierto
+ * y sondeo lineal sobre arreglos primitivos: las claves no se convierten a
+ * Integer y una búsqueda recorre casillas contiguas de un int[].
+ *
+ * Para poder usarse desde varios hilos el mapa se divide en segmentos según el
+ * hash de la clave. Cada segmento tiene un StampedLock: las lecturas son
+ * optimistas (no toman el candado ni escriben memoria compartida, y solo se
+ * repiten con candado de lectura si un escritor modificó el segmento en el
+ * medio) y las escrituras toman el candado de escritura de su segmento.
+ *
+ * No admite valores null. Los valores se comparan por identidad en
+ * quitar(clave, valor).
+ */
+public class MapaEnteros<V> {
+
+    private static final int BITS_SEGMENTO = 6;
+    private static final int SEGMENTOS = 1 << BITS_SEGMENTO;
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+
+    public MapaEnteros() {
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento();
+        }
+    }
+
+    /** Retorna el valor asociado a la clave, o null si no está. */
+    @SuppressWarnings("unchecked")
+    public V obtener(int clave) {
+        int h = mezclar(clave);
+        return (V) segmento(h).obtener(h, clave);
+    }
+
+    public boolean contiene(int clave) {
+        return obtener(clave) != null;
+    }
+
+    /** Asocia el valor a la clave y retorna el valor anterior (o null). */
+    @SuppressWarnings("unchecked")
+    public V poner(int clave, V valor) {
+        int h = mezclar(clave);
+        return (V) segmento(h).poner(h, clave, requerir(valor), false);
+    }
+
+    /**
+     * Asocia el valor solo si la clave no estaba. Retorna el valor existente, o
+     * null si se agregó.
+     */
+    @SuppressWarnings("unchecked")
+    public V ponerSiAusente(int clave, V valor) {
+        int h = mezclar(clave);
+        return (V) segmento(h).poner(h, clave, requerir(valor), true);
+    }
+
+    /** Quita la clave y retorna el valor que tenía (o null). */
+    @SuppressWarnings("unchecked")
+    public V quitar(int clave) {
+        int h = mezclar(clave);
+        return (V) segmento(h).quitar(h, clave, null);
+    }
+
+    /** Quita la clave solo si está asociada a ese mismo valor. */
+    public boolean quitar(int clave, V valor) {
+        int h = mezclar(clave);
+        return segmento(h).quitar(h, clave, requerir(valor)) != null;
+    }
+
+    public void limpiar() {
+        for (Segmento s : segmentos) {
+            s.limpiar();
+        }
+    }
+
+    public int tamanio() {
+        int total = 0;
+        for (Segmento s : segmentos) {
+            total += s.tamanio();
+        }
+        return total;
+    }
+
+    private static Object requerir(Object valor) {
+        if (valor == null) {
+            throw new NullPointerException("MapaEnteros no admite valores null");
+        }
+        return valor;
+    }
+
+    /** Dispersa la clave: los DNI suelen ser consecutivos. */
+    private static int mezclar(int clave) {
+        int h = clave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segmento segmento(int h) {
+        return segmentos[h & (SEGMENTOS - 1)];
+    }
+
+    /**
+     * Tabla de un segmento. La clave 0 marca casilla libre, por eso su valor se
+     * guarda aparte. Los borrados corren hacia atrás las claves siguientes, así
+     * no quedan marcas de borrado.
+     */
+    private static final class Segmento {
+        private final StampedLock candado = new StampedLock();
+        private int[] claves = new int[CAPACIDAD_INICIAL];
+        private Object[] valores = new Object[CAPACIDAD_INICIAL];
+        private int cantidad;
+        private Object valorCero;
+
+        private static int indice(int h, int mascara) {
+            return (h >>> BITS_SEGMENTO) & mascara;
+        }
+
+        Object obtener(int h, int clave) {
+            long sello = candado.tryOptimisticRead();
+            if (sello != 0) {
+                Object valor = buscar(h, clave);
+                if (candado.validate(sello)) {
+                    return valor;
+                }
+            }
+            sello = candado.readLock();
+            try {
+                return buscar(h, clave);
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+
+        private Object buscar(int h, int clave) {
+            if (clave == 0) {
+                return valorCero;
+            }
+            int[] c = claves;
+            Object[] v = valores;
+            if (c.length != v.length) {
+                return null; // lectura optimista a mitad de un agrandado: no pasa validate()
+            }
+            int mascara = c.length - 1;
+            int i = indice(h, mascara);
+            for (int n = 0; n < c.length; n++) {
+                int k = c[i];
+                if (k == clave) {
+                    return v[i];
+                }
+                if (k == 0) {
+                    return null;
+                }
+                i = (i + 1) & mascara;
+            }
+            return null;
+        }
+
+        Object poner(int h, int clave, Object valor, boolean soloSiAusente) {
+            long sello = candado.writeLock();
+            try {
+                if (clave == 0) {
+                    Object anterior = valorCero;
+                    if (anterior == null || !soloSiAusente) {
+                        valorCero = valor;
+                    }
+                    return anterior;
+                }
+                int mascara = claves.length - 1;
+                int i = indice(h, mascara);
+                while (claves[i] != 0) {
+                    if (claves[i] == clave) {
+                        Object anterior = valores[i];
+                        if (!soloSiAusente) {
+                            valores[i] = valor;
+                        }
+                        return anterior;
+                    }
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = clave;
+                valores[i] = valor;
+                cantidad++;
+                // Se mantiene la ocupación por debajo del 60% para que los sondeos sean cortos
+                if (cantidad * 5 > claves.length * 3) {
+                    agrandar();
+                }
+                return null;
+            } finally {
+                candado.unlockWrite(sello);
+            }
+        }
+
+        Object quitar(int h, int clave, Object esperado) {
+            long sello = candado.writeLock();
+            try {
+                if (clave == 0) {
+                    Object anterior = valorCero;
+                    if (anterior != null && (esperado == null || anterior == esperado)) {
+                        valorCero = null;
+                        return anterior;
+                    }
+                    return null;
+                }
+                int mascara = claves.length - 1;
+                int i = indice(h, mascara);
+                while (claves[i] != clave) {
+                    if (claves[i] == 0) {
+                        return null;
+                    }
+                    i = (i + 1) & mascara;
+                }
+                Object anterior = valores[i];
+                if (esperado != null && anterior != esperado) {
+                    return null;
+                }
+                // Corrimiento hacia atrás: cada clave siguiente del grupo que quedaría
+                // inalcanzable desde su posición ideal se mueve a la casilla libre
+                int libre = i;
+                int j = i;
+                while (true) {
+                    j = (j + 1) & mascara;
+                    if (claves[j] == 0) {
+                        break;
+                    }
+                    int ideal = indice(mezclar(claves[j]), mascara);
+                    boolean alcanzable = (libre < j) ? (ideal > libre && ideal <= j) : (ideal > libre || ideal <= j);
+                    if (!alcanzable) {
+                        claves[libre] = claves[j];
+                        valores[libre] = valores[j];
+                        libre = j;
+                    }
+                }
+                claves[libre] = 0;
+                valores[libre] = null;
+                cantidad--;
+                return anterior;
+            } finally {
+                candado.unlockWrite(sello);
+            }
+        }
+
+        private void agrandar() {
+            int[] viejasClaves = claves;
+            Object[] viejosValores = valores;
+            int[] nuevasClaves = new int[viejasClaves.length * 2];
+            Object[] nuevosValores = new Object[nuevasClaves.length];
+            int mascara = nuevasClaves.length - 1;
+            for (int j = 0; j < viejasClaves.length; j++) {
+                int k = viejasClaves[j];
+                if (k != 0) {
+                    int i = indice(mezclar(k), mascara);
+                    while (nuevasClaves[i] != 0) {
+                        i = (i + 1) & mascara;
+                    }
+                    nuevasClaves[i] = k;
+                    nuevosValores[i] = viejosValores[j];
+                }
+            }
+            claves = nuevasClaves;
+            valores = nuevosValores;
+        }
+
+        void limpiar() {
+            long sello = candado.writeLock();
+            try {
+                claves = new int[CAPACIDAD_INICIAL];
+                valores = new Object[CAPACIDAD_INICIAL];
+                cantidad = 0;
+                valorCero = null;
+            } finally {
+                candado.unlockWrite(sello);
+            }
+        }
+
+        int tamanio() {
+            long sello = candado.readLock();
+            try {
+                return cantidad + (valorCero != null ? 1 : 0);
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Registro de métricas del sistema: contadores y temporizadores (con
+ * histograma de latencias) de las operaciones críticas, como la carga de
+ * datos, cada guardar*, los pagos y las búsquedas.
+ *
+ * Las métricas se crean por nombre la primera vez que se piden y quien las
+ * usa seguido guarda la referencia (por ejemplo en un campo estático), así
+ * registrar un valor no busca en el mapa. Registrar no toma candados: los
+ * contadores son LongAdder y el histograma un arreglo de contadores atómicos.
+ *
+ * publicarEnJmx() expone cada métrica como un MBean (dominio "gimnasio") y
+ * volcar() escribe un resumen de todas en un archivo de texto.
+ */
+public class Metricas {
+
+    private static final String DOMINIO = "gimnasio";
+
+    private static final Map<String, Contador> CONTADORES = new ConcurrentHashMap<>();
+    private static final Map<String, Temporizador> TEMPORIZADORES = new ConcurrentHashMap<>();
+    private static volatile boolean publicadas;
+
+    private Metricas() {
+    }
+
+    // Interfaces de los MBeans
+
+    public interface ContadorMBean {
+        long getValor();
+
+        void reiniciar();
+    }
+
+    public interface TemporizadorMBean {
+        long getCantidad();
+
+        double getTotalMs();
+
+        double getPromedioMs();
+
+        double getMaximoMs();
+
+        double getP50Ms();
+
+        double getP95Ms();
+
+        double getP99Ms();
+
+        void reiniciar();
+    }
+
+    public interface RegistroMBean {
+        String getResumen();
+
+        void volcar(String ruta) throws IOException;
+
+        void reiniciar();
+    }
+
+    /** Contador de eventos. */
+    public static class Contador implements ContadorMBean {
+        private final LongAdder valor = new LongAdder();
+
+        public void incrementar() {
+            valor.increment();
+        }
+
+        public void sumar(long cantidad) {
+            valor.add(cantidad);
+        }
+
+        @Override
+        public long getValor() {
+            return valor.sum();
+        }
+
+        @Override
+        public void reiniciar() {
+            valor.reset();
+        }
+    }
+
+    /**
+     * Temporizador: cantidad, total y máximo de las duraciones registradas y un
+     * histograma para estimar percentiles. Cada potencia de dos de
+     * nanosegundos se divide en cuatro casilleros, así el percentil tiene un
+     * error menor al 25%.
+     */
+    public static class Temporizador implements TemporizadorMBean {
+        private static final int SUBDIVISIONES = 4;
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maximoNanos = new AtomicLong();
+        private final AtomicLongArray casilleros = new AtomicLongArray(64 * SUBDIVISIONES);
+
+        /** Momento de inicio para pasarle luego a detener(). */
+        public long iniciar() {
+            return System.nanoTime();
+        }
+
+        /** Registra lo transcurrido desde inicio (obtenido con iniciar()). */
+        public void detener(long inicio) {
+            registrar(System.nanoTime() - inicio);
+        }
+
+        public void registrar(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            cantidad.increment();
+            totalNanos.add(nanos);
+            long maximo = maximoNanos.get();
+            while (nanos > maximo && !maximoNanos.compareAndSet(maximo, nanos)) {
+                maximo = maximoNanos.get();
+            }
+            casilleros.incrementAndGet(casillero(nanos));
+        }
+
+        private static int casillero(long nanos) {
+            if (nanos < SUBDIVISIONES) {
+                return (int) nanos;
+            }
+            int bit = 63 - Long.numberOfLeadingZeros(nanos);
+            int fraccion = (int) (nanos >>> (bit - 2)) & (SUBDIVISIONES - 1);
+            return bit * SUBDIVISIONES + fraccion;
+        }
+
+        /** Límite superior (en nanos) de los valores del casillero. */
+        private static long limiteSuperior(int casillero) {
+            if (casillero < SUBDIVISIONES) {
+                return casillero;
+            }
+            int bit = casillero / SUBDIVISIONES;
+            long fraccion = casillero % SUBDIVISIONES;
+            return ((SUBDIVISIONES + fraccion + 1) << (bit - 2)) - 1;
+        }
+
+        /** Duración (en nanos) por debajo de la cual está la fracción p (0 a 1) de los registros. */
+        public long percentilNanos(double p) {
+            long[] conteos = new long[casilleros.length()];
+            long total = 0;
+            for (int i = 0; i < conteos.length; i++) {
+                conteos[i] = casilleros.get(i);
+                total += conteos[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long objetivo = (long) Math.ceil(p * total);
+            long acumulado = 0;
+            for (int i = 0; i < conteos.length; i++) {
+                acumulado += conteos[i];
+                if (acumulado >= Math.max(1, objetivo)) {
+                    return Math.min(limiteSuperior(i), maximoNanos.get());
+                }
+            }
+            return maximoNanos.get();
+        }
+
+        @Override
+        public long getCantidad() {
+            return cantidad.sum();
+        }
+
+        @Override
+        public double getTotalMs() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        @Override
+        public double getPromedioMs() {
+            long n = cantidad.sum();
+            return (n > 0) ? totalNanos.sum() / 1e6 / n : 0;
+        }
+
+        @Override
+        public double getMaximoMs() {
+            return maximoNanos.get() / 1e6;
+        }
+
+        @Override
+        public double getP50Ms() {
+            return percentilNanos(0.50) / 1e6;
+        }
+
+        @Override
+        public double getP95Ms() {
+            return percentilNanos(0.95) / 1e6;
+        }
+
+        @Override
+        public double getP99Ms() {
+            return percentilNanos(0.99) / 1e6;
+        }
+
+        @Override
+        public void reiniciar() {
+            cantidad.reset();
+            totalNanos.reset();
+            maximoNanos.set(0);
+            for (int i = 0; i < casilleros.length(); i++) {
+                casilleros.set(i, 0);
+            }
+        }
+    }
+
+    /** Registro completo como MBean: resumen, volcado a archivo y reinicio. */
+    private static class Registro implements RegistroMBean {
+        @Override
+        public String getResumen() {
+            return Metricas.resumen();
+        }
+
+        @Override
+        public void volcar(String ruta) throws IOException {
+            Metricas.volcar(ruta);
+        }
+
+        @Override
+        public void reiniciar() {
+            Metricas.reiniciar();
+        }
+    }
+
+    /** Contador con ese nombre (se crea si no existe). */
+    public static Contador contador(String nombre) {
+        Contador c = CONTADORES.get(nombre);
+        if (c == null) {
+            Contador nuevo = new Contador();
+            c = CONTADORES.putIfAbsent(nombre, nuevo);
+            if (c == null) {
+                c = nuevo;
+                if (publicadas) {
+                    publicar("Contador", nombre, c, ContadorMBean.class);
+                }
+            }
+        }
+        return c;
+    }
+
+    /** Temporizador con ese nombre (se crea si no existe). */
+    public static Temporizador temporizador(String nombre) {
+        Temporizador t = TEMPORIZADORES.get(nombre);
+        if (t == null) {
+            Temporizador nuevo = new Temporizador();
+            t = TEMPORIZADORES.putIfAbsent(nombre, nuevo);
+            if (t == null) {
+                t = nuevo;
+                if (publicadas) {
+                    publicar("Temporizador", nombre, t, TemporizadorMBean.class);
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Registra las métricas existentes, y las que se creen después, como MBeans
+     * del servidor de la plataforma (visibles con jconsole o VisualVM).
+     */
+    public static synchronized void publicarEnJmx() {
+        if (publicadas) {
+            return;
+        }
+        publicadas = true;
+        publicar("Registro", "metricas", new Registro(), RegistroMBean.class);
+        for (Map.Entry<String, Contador> e : CONTADORES.entrySet()) {
+            publicar("Contador", e.getKey(), e.getValue(), ContadorMBean.class);
+        }
+        for (Map.Entry<String, Temporizador> e : TEMPORIZADORES.entrySet()) {
+            publicar("Temporizador", e.getKey(), e.getValue(), TemporizadorMBean.class);
+        }
+    }
+
+    private static <T> void publicar(String tipo, String nombre, T metrica, Class<T> interfaz) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objeto = new ObjectName(DOMINIO + ":type=" + tipo + ",name=" + ObjectName.quote(nombre));
+            if (!servidor.isRegistered(objeto)) {
+                servidor.registerMBean(new StandardMBean(metrica, interfaz), objeto);
+            }
+        } catch (Exception e) {
+            System.err.println("No se pudo publicar la métrica " + nombre + ": " + e.getMessage());
+        }
+    }
+
+    /** Resumen de todas las métricas, una por línea y ordenadas por nombre. */
+    public static String resumen() {
+        StringBuilder sb = new StringBuilder();
+        for (String linea : lineas()) {
+            sb.append(linea).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static List<String> lineas() {
+        List<String> lineas = new ArrayList<>();
+        for (Map.Entry<String, Contador> e : new TreeMap<>(CONTADORES).entrySet()) {
+            lineas.add(e.getKey() + " cantidad=" + e.getValue().getValor());
+        }
+        for (Map.Entry<String, Temporizador> e : new TreeMap<>(TEMPORIZADORES).entrySet()) {
+            Temporizador t = e.getValue();
+            lineas.add(String.format(Locale.ROOT,
+                    "%s cantidad=%d total_ms=%.3f promedio_ms=%.3f p50_ms=%.3f p95_ms=%.3f p99_ms=%.3f max_ms=%.3f",
+                    e.getKey(), t.getCantidad(), t.getTotalMs(), t.getPromedioMs(), t.getP50Ms(), t.getP95Ms(),
+                    t.getP99Ms(), t.getMaximoMs()));
+        }
+        return lineas;
+    }
+
+    /** Escribe el resumen de las métricas en el archivo (lo reemplaza). */
+    public static void volcar(String ruta) throws IOException {
+        Path destino = Paths.get(ruta);
+        if (destino.getParent() != null) {
+            Files.createDirectories(destino.getParent());
+        }
+        List<String> lineas = lineas();
+        lineas.add(0, "# Métricas al " + new Date());
+        Files.write(destino, lineas, StandardCharsets.UTF_8);
+    }
+
+    /** Pone en cero todas las métricas. */
+    public static void reiniciar() {
+        for (Contador c : CONTADORES.values()) {
+            c.reiniciar();
+        }
+        for (Temporizador t : TEMPORIZADORES.values()) {
+            t.reiniciar();
+        }
+    }
+}
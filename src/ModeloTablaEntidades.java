@@ -0,0 +1,251 @@
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Modelo de tabla para listar entidades del gimnasio (socios, empleados,
+ * clases) sin armar todas las filas de antemano: la tabla solo pide los
+ * valores de las celdas visibles, y cada valor se lee de la entidad en ese
+ * momento.
+ *
+ * El modelo guarda una instantánea de la lista de entidades y un arreglo con
+ * los índices visibles en orden. Recargar, filtrar y ordenar calculan un
+ * arreglo nuevo en segundo plano (SwingWorker), que al recargar también toma
+ * la instantánea, y lo publican en el hilo de Swing al terminar; si mientras
+ * tanto se pidió otra recarga, filtro u orden, el resultado viejo se descarta.
+ */
+public class ModeloTablaEntidades<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Columna de la tabla: cómo mostrar el valor y, opcionalmente, por qué ordenar. */
+    public static class Columna<T> {
+        private final String nombre;
+        private final Class<?> tipo;
+        private final Function<T, ?> valor;
+        private final Function<T, ? extends Comparable<?>> orden;
+
+        public Columna(String nombre, Class<?> tipo, Function<T, ?> valor) {
+            this(nombre, tipo, valor, null);
+        }
+
+        /**
+         * @param orden clave para ordenar la columna (por ejemplo la fecha en
+         *              milisegundos cuando se muestra formateada); si es null se
+         *              ordena por el valor mostrado
+         */
+        public Columna(String nombre, Class<?> tipo, Function<T, ?> valor,
+                Function<T, ? extends Comparable<?>> orden) {
+            this.nombre = nombre;
+            this.tipo = tipo;
+            this.valor = valor;
+            this.orden = orden;
+        }
+    }
+
+    private final List<Columna<T>> columnas;
+    private final Supplier<List<T>> origen;
+    private final Function<T, String> textoBusqueda;
+
+    // Estado publicado: solo se lee y modifica en el hilo de Swing
+    private List<T> filas = Collections.emptyList();
+    private int[] visibles = new int[0];
+    private String filtro = "";
+    private int columnaOrden = -1;
+    private boolean ascendente = true;
+    private int generacion;
+    private SwingWorker<Calculo<T>, Void> calculoEnCurso;
+    private Runnable alActualizar;
+
+    /**
+     * @param origen        de dónde se toman las entidades al recargar
+     * @param textoBusqueda texto de cada entidad sobre el que se aplica el filtro
+     */
+    public ModeloTablaEntidades(List<Columna<T>> columnas, Supplier<List<T>> origen,
+            Function<T, String> textoBusqueda) {
+        this.columnas = new ArrayList<>(columnas);
+        this.origen = origen;
+        this.textoBusqueda = textoBusqueda;
+    }
+
+    /** Acción a ejecutar (en el hilo de Swing) cada vez que cambian las filas visibles. */
+    public void setAlActualizar(Runnable alActualizar) {
+        this.alActualizar = alActualizar;
+    }
+
+    /** Entidades y filas visibles calculadas en segundo plano. */
+    private static final class Calculo<T> {
+        private final List<T> entidades;
+        private final int[] visibles;
+
+        private Calculo(List<T> entidades, int[] visibles) {
+            this.entidades = entidades;
+            this.visibles = visibles;
+        }
+    }
+
+    /**
+     * Vuelve a tomar las entidades del origen. La instantánea se toma en segundo
+     * plano junto con el filtro y el orden, así el hilo de Swing no recorre la
+     * colección.
+     */
+    public void recargar() {
+        recalcular(() -> new ArrayList<>(origen.get()));
+    }
+
+    /** Filtra las filas que contienen el texto (sin distinguir mayúsculas). */
+    public void filtrar(String texto) {
+        String normalizado = (texto != null) ? texto.trim().toLowerCase(Locale.ROOT) : "";
+        if (!normalizado.equals(filtro)) {
+            filtro = normalizado;
+            List<T> actuales = filas;
+            recalcular(() -> actuales);
+        }
+    }
+
+    /** Ordena por la columna; si ya estaba ordenada por ella, invierte el sentido. */
+    public void ordenarPor(int columna) {
+        if (columna < 0 || columna >= columnas.size()) {
+            return;
+        }
+        ascendente = (columna == columnaOrden) ? !ascendente : true;
+        columnaOrden = columna;
+        List<T> actuales = filas;
+        recalcular(() -> actuales);
+    }
+
+    /** Toma las entidades de la fuente y calcula las filas visibles en segundo plano. */
+    private void recalcular(Supplier<List<T>> fuente) {
+        int miGeneracion = ++generacion;
+        cancelarCalculo();
+        String f = filtro;
+        int col = columnaOrden;
+        boolean asc = ascendente;
+        calculoEnCurso = new SwingWorker<Calculo<T>, Void>() {
+            @Override
+            protected Calculo<T> doInBackground() {
+                List<T> entidades = fuente.get();
+                return new Calculo<>(entidades, calcularVisibles(entidades, f, col, asc));
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || miGeneracion != generacion) {
+                    return;
+                }
+                try {
+                    Calculo<T> calculo = get();
+                    publicar(calculo.entidades, calculo.visibles);
+                } catch (Exception e) {
+                    System.err.println("Error actualizando la tabla: " + e.getMessage());
+                }
+            }
+        };
+        calculoEnCurso.execute();
+    }
+
+    private void cancelarCalculo() {
+        if (calculoEnCurso != null) {
+            calculoEnCurso.cancel(false);
+            calculoEnCurso = null;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private int[] calcularVisibles(List<T> entidades, String f, int col, boolean asc) {
+        int[] coinciden = new int[entidades.size()];
+        int n = 0;
+        for (int i = 0; i < entidades.size(); i++) {
+            if (f.isEmpty() || textoBusqueda.apply(entidades.get(i)).toLowerCase(Locale.ROOT).contains(f)) {
+                coinciden[n++] = i;
+            }
+        }
+        if (col < 0) {
+            return Arrays.copyOf(coinciden, n);
+        }
+        // Las claves se calculan una vez por fila, no en cada comparación
+        Columna<T> columna = columnas.get(col);
+        Comparable[] claves = new Comparable[entidades.size()];
+        Integer[] orden = new Integer[n];
+        for (int k = 0; k < n; k++) {
+            int i = coinciden[k];
+            T t = entidades.get(i);
+            Object clave = (columna.orden != null) ? columna.orden.apply(t) : columna.valor.apply(t);
+            claves[i] = (clave instanceof Comparable) ? (Comparable) clave : (clave != null ? clave.toString() : null);
+            orden[k] = i;
+        }
+        Comparator<Integer> comparador = (a, b) -> {
+            Comparable x = claves[a];
+            Comparable y = claves[b];
+            if (x == null || y == null) {
+                return (x == null) ? (y == null ? 0 : -1) : 1;
+            }
+            return x.compareTo(y);
+        };
+        Arrays.sort(orden, asc ? comparador : comparador.reversed());
+        int[] resultado = new int[n];
+        for (int k = 0; k < n; k++) {
+            resultado[k] = orden[k];
+        }
+        return resultado;
+    }
+
+    private void publicar(List<T> entidades, int[] nuevasVisibles) {
+        filas = entidades;
+        visibles = nuevasVisibles;
+        fireTableDataChanged();
+        if (alActualizar != null) {
+            alActualizar.run();
+        }
+    }
+
+    /** Entidad que se muestra en la fila (índice de la vista). */
+    public T getEntidad(int fila) {
+        return filas.get(visibles[fila]);
+    }
+
+    /** Cantidad total de entidades, sin aplicar el filtro. */
+    public int getCantidadTotal() {
+        return filas.size();
+    }
+
+    public int getColumnaOrden() {
+        return columnaOrden;
+    }
+
+    public boolean isAscendente() {
+        return ascendente;
+    }
+
+    @Override
+    public int getRowCount() {
+        return visibles.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.size();
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return columnas.get(columna).nombre;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        return columnas.get(columna).tipo;
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        return columnas.get(columna).valor.apply(getEntidad(fila));
+    }
+}
@@ -0,0 +1,92 @@
+import javax.swing.table.AbstractTableModel;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Modelo de tabla para los movimientos de una cuenta bancaria. No arma las
+ * filas de antemano: guarda la lista de movimientos (por ejemplo la vista de
+ * CuentaBancaria.getVistaMovimientosPorMes, que no copia nada) y la tabla solo
+ * pide, y por lo tanto formatea, las celdas que están a la vista.
+ *
+ * Se usa desde el hilo de Swing, como cualquier modelo de tabla; por eso
+ * puede reutilizar un único SimpleDateFormat.
+ */
+public class ModeloTablaMovimientos extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Movimientos de un período junto con sus totales, consultados juntos (en
+     * la misma tarea en segundo plano) para que el resumen corresponda a las
+     * filas que se muestran.
+     */
+    public static class Periodo {
+        private final List<Registro> movimientos;
+        private final long[] resumen;
+
+        private Periodo(List<Registro> movimientos, long[] resumen) {
+            this.movimientos = movimientos;
+            this.resumen = resumen;
+        }
+
+        /** Vista de los movimientos y totales del mes/año (ver CuentaBancaria.calcularResumenMes). */
+        public static Periodo consultar(CuentaBancaria cuenta, int mes, int anio) {
+            return new Periodo(cuenta.getVistaMovimientosPorMes(mes, anio), cuenta.calcularResumenMes(mes, anio));
+        }
+
+        public List<Registro> getMovimientos() {
+            return movimientos;
+        }
+
+        /** Totales en centavos: [0]=haber, [1]=debe, [2]=neto. */
+        public long[] getResumen() {
+            return resumen;
+        }
+    }
+
+    private static final String[] COLUMNAS = { "Fecha", "Tipo", "Descripción", "Monto" };
+
+    private final SimpleDateFormat formatoFecha = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    private List<Registro> movimientos = Collections.emptyList();
+
+    /** Reemplaza los movimientos que se muestran. */
+    public void setMovimientos(List<Registro> movimientos) {
+        this.movimientos = (movimientos != null) ? movimientos : Collections.emptyList();
+        fireTableDataChanged();
+    }
+
+    public Registro getMovimiento(int fila) {
+        return movimientos.get(fila);
+    }
+
+    @Override
+    public int getRowCount() {
+        return movimientos.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Registro r = movimientos.get(fila);
+        switch (columna) {
+            case 0:
+                return (r.getFecha() != null) ? formatoFecha.format(r.getFecha()) : "";
+            case 1:
+                return r.getTipo();
+            case 2:
+                return r.getDescripcion();
+            default:
+                return Dinero.aTexto(r.getMonto());
+        }
+    }
+}
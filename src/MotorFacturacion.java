@@ -0,0 +1,273 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Facturación masiva de cuotas: cobra el precio de su plan (según el
+ * CatalogoPlanes) a todos los socios cuyo plan vence dentro de una ventana de
+ * fechas, con Socio.pagarCuota, igual que el pago manual. Los socios de la
+ * ventana se obtienen del índice de vencimientos del gimnasio.
+ *
+ * Los socios se procesan por lotes. Cada cobro toma el candado del socio, y al
+ * cerrar el lote los movimientos HABER de todos sus cobros se anexan juntos al
+ * historial (una sola escritura de la cabecera) y los socios cobrados, con su
+ * nuevo vencimiento, se registran con una sola escritura del delta de socios.
+ *
+ * Cada corrida cobra una sola cuota por socio. Si la ventana es más larga que
+ * el plan, el nuevo vencimiento puede seguir dentro de ella y volver a
+ * facturar la misma ventana lo cobraría otra vez; la facturación programada
+ * avanza la ventana en cada corrida, así que cada vencimiento se cobra una
+ * vez. Para cobrar por adelantado todas las cuotas que caen en la ventana hay
+ * que pedirlo explícitamente (ver facturar(Date, Date, boolean)). Cada cobro
+ * se cuenta en las mismas métricas que el pago manual (pago.socio).
+ * Además puede programarse para que corra periódicamente en un hilo propio
+ * (ver programar()).
+ */
+public class MotorFacturacion {
+
+    public static final int TAMANIO_LOTE = 1000;
+    // Fallidos que se conservan en el resultado
+    private static final int MAX_FALLIDOS_EN_RESULTADO = 100;
+
+    // Las mismas métricas que Gimnasio.registrarPagoSocio, más la corrida completa
+    private static final Metricas.Temporizador TIEMPO_PAGO_SOCIO = Metricas.temporizador("pago.socio");
+    private static final Metricas.Contador PAGOS_SOCIO_RECHAZADOS = Metricas.contador("pago.socio.rechazados");
+    private static final Metricas.Temporizador TIEMPO_FACTURACION = Metricas.temporizador("facturacion");
+
+    /** Resumen y métricas de una facturación. */
+    public static class Resultado {
+        private long evaluados;
+        private long cobrados;
+        private long fallidos;
+        private final List<String> primerosFallidos = new ArrayList<>();
+        private long totalCobrado;
+        private int lotes;
+        private long milisegundos;
+
+        /** Socios cuyo plan vencía en la ventana. */
+        public long getEvaluados() {
+            return evaluados;
+        }
+
+        public long getCobrados() {
+            return cobrados;
+        }
+
+        public long getFallidos() {
+            return fallidos;
+        }
+
+        /** Los primeros fallidos ("DNI - Nombre Apellido: motivo"), hasta 100. */
+        public List<String> getPrimerosFallidos() {
+            return Collections.unmodifiableList(primerosFallidos);
+        }
+
+        /** Total cobrado en centavos. */
+        public long getTotalCobrado() {
+            return totalCobrado;
+        }
+
+        public int getLotes() {
+            return lotes;
+        }
+
+        public long getMilisegundos() {
+            return milisegundos;
+        }
+
+        /** Socios evaluados por segundo. */
+        public double getSociosPorSegundo() {
+            return (milisegundos > 0) ? evaluados * 1000.0 / milisegundos : evaluados;
+        }
+
+        @Override
+        public String toString() {
+            return "Resultado{" +
+                    "evaluados=" + evaluados +
+                    ", cobrados=" + cobrados +
+                    ", fallidos=" + fallidos +
+                    ", totalCobrado=" + Dinero.aTexto(totalCobrado) +
+                    ", lotes=" + lotes +
+                    ", ms=" + milisegundos +
+                    ", sociosPorSegundo=" + Math.round(getSociosPorSegundo()) +
+                    '}';
+        }
+    }
+
+    private final Gimnasio gimnasio;
+    private final CatalogoPlanes catalogo;
+    private final int tamanioLote;
+    // Facturación periódica
+    private ScheduledExecutorService programador;
+    private long facturadoHasta;
+    private volatile Resultado ultimoResultado;
+
+    public MotorFacturacion(Gimnasio gimnasio) {
+        this(gimnasio, CatalogoPlanes.porDefecto(), TAMANIO_LOTE);
+    }
+
+    public MotorFacturacion(Gimnasio gimnasio, CatalogoPlanes catalogo, int tamanioLote) {
+        this.gimnasio = gimnasio;
+        this.catalogo = catalogo;
+        this.tamanioLote = Math.max(1, tamanioLote);
+    }
+
+    /**
+     * Cobra una cuota a cada socio cuyo plan vence entre desde (inclusive) y
+     * hasta (exclusive).
+     */
+    public Resultado facturar(Date desde, Date hasta) {
+        return facturar(desde, hasta, false);
+    }
+
+    /**
+     * Como facturar(desde, hasta), pero si cubrirVentana es true cobra a cada
+     * socio tantas cuotas como hagan falta para que su nuevo vencimiento no sea
+     * anterior a hasta: con una ventana de un año y planes mensuales, hasta
+     * doce cuotas por adelantado en una sola corrida.
+     */
+    public Resultado facturar(Date desde, Date hasta, boolean cubrirVentana) {
+        long inicio = System.nanoTime();
+        Resultado resultado = new Resultado();
+        long d = desde.getTime();
+        long h = hasta.getTime();
+        List<Socio> aFacturar = gimnasio.getSociosQueVencenEntre(desde, hasta);
+        resultado.evaluados = aFacturar.size();
+        for (int i = 0; i < aFacturar.size(); i += tamanioLote) {
+            procesarLote(aFacturar.subList(i, Math.min(i + tamanioLote, aFacturar.size())), d, h, cubrirVentana,
+                    resultado);
+        }
+        long nanos = System.nanoTime() - inicio;
+        TIEMPO_FACTURACION.registrar(nanos);
+        resultado.milisegundos = nanos / 1_000_000;
+        ultimoResultado = resultado;
+        return resultado;
+    }
+
+    private void procesarLote(List<Socio> lote, long desde, long hasta, boolean cubrirVentana,
+            Resultado resultado) {
+        CuentaBancaria cuenta = gimnasio.getCuenta();
+        List<Socio> cobrados = new ArrayList<>(lote.size());
+        List<String> descripciones = new ArrayList<>(lote.size());
+        long[] montos = new long[lote.size()];
+        for (Socio s : lote) {
+            long precio = catalogo.precio(s.getPlanMeses());
+            String motivo = null;
+            int cuotas = 0;
+            if (cuenta == null) {
+                motivo = "no hay cuenta bancaria del gimnasio";
+            } else if (precio < 0) {
+                motivo = "el plan de " + s.getPlanMeses() + " meses no tiene precio";
+            } else {
+                synchronized (gimnasio.candadoSocio(s.getDni())) {
+                    // Puede haberse dado de baja o pagado a mano desde que se eligió
+                    if (gimnasio.buscarSocioPorDni(s.getDni()) != s || !venceEntre(s, desde, hasta)) {
+                        resultado.evaluados--;
+                        continue;
+                    }
+                    long inicio = TIEMPO_PAGO_SOCIO.iniciar();
+                    cuotas = cobrar(s, precio, cuenta, hasta, cubrirVentana);
+                    TIEMPO_PAGO_SOCIO.detener(inicio);
+                    if (cuotas == 0) {
+                        motivo = "el socio no tiene cuenta bancaria";
+                    }
+                }
+            }
+            if (motivo != null) {
+                PAGOS_SOCIO_RECHAZADOS.incrementar();
+                resultado.fallidos++;
+                if (resultado.primerosFallidos.size() < MAX_FALLIDOS_EN_RESULTADO) {
+                    resultado.primerosFallidos.add(s.getDni() + " - " + s.getNombre() + " " + s.getApellido()
+                            + ": " + motivo);
+                }
+                continue;
+            }
+            montos[cobrados.size()] = precio * cuotas;
+            cobrados.add(s);
+            descripciones.add("Pago de cuota del socio " + s.getNombre() + " " + s.getApellido()
+                    + (cuotas > 1 ? " (" + cuotas + " cuotas)" : ""));
+            resultado.totalCobrado += precio * cuotas;
+        }
+        resultado.lotes++;
+        if (cobrados.isEmpty()) {
+            return;
+        }
+        resultado.cobrados += cobrados.size();
+        gimnasio.registrarMovimientos("HABER", descripciones, Arrays.copyOf(montos, cobrados.size()),
+                cobrados, null);
+        gimnasio.registrarModificacionesSocios(cobrados);
+    }
+
+    /**
+     * Cobra una cuota al socio y, si cubrirVentana es true, sigue cobrando hasta
+     * que su vencimiento no sea anterior a hasta (una sola si el plan no tiene
+     * meses). Retorna cuántas cobró; 0 si no tiene cuenta. Se llama con el
+     * candado del socio tomado.
+     */
+    private static int cobrar(Socio s, long precio, CuentaBancaria cuenta, long hasta, boolean cubrirVentana) {
+        int cuotas = 0;
+        do {
+            if (!s.pagarCuota(precio, cuenta)) {
+                break;
+            }
+            cuotas++;
+        } while (cubrirVentana && s.getPlanMeses() > 0 && s.getVencimientoMilis() < hasta);
+        return cuotas;
+    }
+
+    private static boolean venceEntre(Socio s, long desde, long hasta) {
+        long v = s.getVencimientoMilis();
+        return v >= desde && v < hasta;
+    }
+
+    /**
+     * Programa la facturación para que corra cada periodoMs milisegundos en un
+     * hilo propio. Cada corrida cobra los planes que vencen desde donde terminó
+     * la anterior hasta anticipacionMs después del momento actual (la primera
+     * arranca desde el momento en que se programa).
+     */
+    public synchronized void programar(long periodoMs, long anticipacionMs) {
+        if (programador != null) {
+            return;
+        }
+        facturadoHasta = System.currentTimeMillis();
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "facturacion-gimnasio");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                long hasta = System.currentTimeMillis() + anticipacionMs;
+                if (hasta > facturadoHasta) {
+                    facturar(new Date(facturadoHasta), new Date(hasta));
+                    facturadoHasta = hasta;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error en la facturación programada: " + e.getMessage());
+            }
+        }, 0, periodoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Detiene la facturación programada (la corrida en curso termina). */
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdown();
+            programador = null;
+        }
+    }
+
+    /** Resultado de la última facturación, o null si todavía no corrió ninguna. */
+    public Resultado getUltimoResultado() {
+        return ultimoResultado;
+    }
+
+    public CatalogoPlanes getCatalogo() {
+        return catalogo;
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Persistencia incremental de un archivo de entidades. En lugar de reescribir
+ * el archivo base en cada alta, baja o modificación, los cambios se anexan a un
+ * archivo de deltas que se aplica al cargar y que se compacta en el archivo
+ * base cuando acumula demasiadas entradas.
+ *
+ * Formato del delta (una línea por cambio):
+ * G|generacion -> primera línea: cuántas veces se compactó la base
+ * U|lineaCSV -> alta o modificación de la entidad
+ * D|clave -> baja de la entidad con esa clave (DNI u horario)
+ *
+ * La generación cambia con cada compactación y el delta solo crece entre
+ * compactaciones, así que la generación y el largo del delta identifican el
+ * contenido sin tener que leerlo (ver InstantaneaGimnasio).
+ *
+ * Los métodos están sincronizados: los cambios y la compactación de un mismo
+ * archivo se serializan aunque lleguen desde distintos hilos.
+ */
+public class PersistenciaIncremental {
+
+    private static final String MODIFICACION = "U";
+    private static final String BAJA = "D";
+    private static final String GENERACION = "G";
+
+    private final String rutaBase;
+    private final String rutaDelta;
+    private final int umbralCompactacion;
+    private int cambiosPendientes;
+    private long generacion;
+    // Si hay escritor asíncrono, las escrituras se delegan a su hilo
+    private EscritorAsincrono escritor;
+
+    public PersistenciaIncremental(String rutaBase, String rutaDelta, int umbralCompactacion) {
+        this.rutaBase = rutaBase;
+        this.rutaDelta = rutaDelta;
+        this.umbralCompactacion = umbralCompactacion;
+    }
+
+    /**
+     * Registra el alta o modificación de una entidad a partir de su línea CSV.
+     * Retorna true si el delta alcanzó el umbral y conviene compactar.
+     */
+    public synchronized boolean registrarModificacion(String lineaCSV) {
+        return anexar(MODIFICACION + "|" + lineaCSV);
+    }
+
+    /**
+     * Registra la baja de la entidad identificada por la clave.
+     * Retorna true si el delta alcanzó el umbral y conviene compactar.
+     */
+    public synchronized boolean registrarBaja(String clave) {
+        return anexar(BAJA + "|" + clave);
+    }
+
+    /**
+     * Registra varias altas o modificaciones juntas (sin escritor asíncrono, con
+     * una sola apertura del delta). Retorna true si el delta alcanzó el umbral.
+     */
+    public synchronized boolean registrarModificaciones(List<String> lineasCSV) {
+        List<String> lineas = new ArrayList<>(lineasCSV.size());
+        for (String lineaCSV : lineasCSV) {
+            lineas.add(MODIFICACION + "|" + lineaCSV);
+        }
+        if (escritor != null) {
+            for (String linea : lineas) {
+                escritor.anexar(rutaDelta, linea);
+            }
+        } else {
+            EscritorAsincrono.anexarLineas(rutaDelta, lineas);
+        }
+        cambiosPendientes += lineas.size();
+        return cambiosPendientes >= umbralCompactacion;
+    }
+
+    private boolean anexar(String linea) {
+        if (escritor != null) {
+            escritor.anexar(rutaDelta, linea);
+        } else {
+            EscritorAsincrono.anexarLineas(rutaDelta, Collections.singletonList(linea));
+        }
+        cambiosPendientes++;
+        return cambiosPendientes >= umbralCompactacion;
+    }
+
+    /**
+     * Reescribe el archivo base con el estado completo y vacía el delta, ya que
+     * todos sus cambios quedan incluidos en la nueva base; el delta vacío
+     * conserva solo la nueva generación.
+     */
+    public synchronized void compactar(List<String> lineas) {
+        cambiosPendientes = 0;
+        List<String> deltaVacio = Collections.singletonList(GENERACION + "|" + (++generacion));
+        Runnable escritura = () -> {
+            if (EscritorAsincrono.escribirLineas(rutaBase, lineas)) {
+                EscritorAsincrono.escribirLineas(rutaDelta, deltaVacio);
+            }
+        };
+        if (escritor != null) {
+            escritor.reescribir(rutaBase, escritura);
+        } else {
+            escritura.run();
+        }
+    }
+
+    /**
+     * Lee los cambios pendientes del delta, en el orden en que se registraron.
+     * Cada cambio es un arreglo {tipo, dato}; usar esBaja() para distinguirlos.
+     */
+    public synchronized List<String[]> leerCambios() {
+        List<String[]> cambios = new ArrayList<>();
+        generacion = 0;
+        File archivo = new File(rutaDelta);
+        if (archivo.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(archivo, StandardCharsets.UTF_8))) {
+                String linea;
+                while ((linea = br.readLine()) != null) {
+                    int separador = linea.indexOf('|');
+                    if (separador <= 0)
+                        continue;
+                    if (linea.startsWith(GENERACION + "|")) {
+                        generacion = Long.parseLong(linea.substring(separador + 1));
+                        continue;
+                    }
+                    cambios.add(new String[] { linea.substring(0, separador), linea.substring(separador + 1) });
+                }
+            } catch (Exception e) {
+                System.err.println("Error leyendo cambios de " + rutaDelta + ": " + e.getMessage());
+            }
+        }
+        cambiosPendientes = cambios.size();
+        return cambios;
+    }
+
+    public static boolean esBaja(String[] cambio) {
+        return BAJA.equals(cambio[0]);
+    }
+
+    /**
+     * Generación que figura en el delta en disco (0 si no hay delta o si es
+     * anterior a la primera compactación). Solo lee la primera línea.
+     */
+    public long generacionEnDisco() {
+        File archivo = new File(rutaDelta);
+        if (!archivo.exists()) {
+            return 0;
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(archivo, StandardCharsets.UTF_8))) {
+            String linea = br.readLine();
+            if (linea != null && linea.startsWith(GENERACION + "|")) {
+                return Long.parseLong(linea.substring(GENERACION.length() + 1));
+            }
+        } catch (Exception e) {
+            System.err.println("Error leyendo la generación de " + rutaDelta + ": " + e.getMessage());
+            return -1;
+        }
+        return 0;
+    }
+
+    // Getters y setters
+
+    public String getRutaBase() {
+        return rutaBase;
+    }
+
+    public String getRutaDelta() {
+        return rutaDelta;
+    }
+
+    public synchronized int getCambiosPendientes() {
+        return cambiosPendientes;
+    }
+
+    public synchronized void setEscritor(EscritorAsincrono escritor) {
+        this.escritor = escritor;
+    }
+}
@@ -1,3 +1,7 @@
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 
 /**
@@ -7,17 +11,21 @@ import java.util.Date;
  */
 public class Registro {
 
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
     private int idRegistro;
     private Date fecha;
     private String tipo;
     private String descripcion;
-    private double monto;
+    private long monto; // en centavos
     private Socio socio;
     private Empleado empleado;
     private Clase clase;
+    // año y mes de la fecha (ver getPeriodo), calculado una sola vez
+    private int periodo;
 
     public Registro(int idRegistro, Date fecha, String tipo, String descripcion,
-            double monto, Socio socio, Empleado empleado, Clase clase) {
+            long monto, Socio socio, Empleado empleado, Clase clase) {
         this.idRegistro = idRegistro;
         this.fecha = fecha;
         this.tipo = tipo;
@@ -26,6 +34,20 @@ public class Registro {
         this.socio = socio;
         this.empleado = empleado;
         this.clase = clase;
+        this.periodo = calcularPeriodo(fecha);
+    }
+
+    /** Codifica año y mes (1-12) en un solo entero: anio * 12 + (mes - 1). */
+    public static int periodo(int anio, int mes) {
+        return anio * 12 + (mes - 1);
+    }
+
+    private static int calcularPeriodo(Date fecha) {
+        if (fecha == null) {
+            return -1;
+        }
+        LocalDate dia = Instant.ofEpochMilli(fecha.getTime()).atZone(ZONA).toLocalDate();
+        return periodo(dia.getYear(), dia.getMonthValue());
     }
 
     @Override
@@ -35,7 +57,7 @@ public class Registro {
                 ", fecha=" + fecha +
                 ", tipo='" + tipo + '\'' +
                 ", descripcion='" + descripcion + '\'' +
-                ", monto=" + monto +
+                ", monto=" + Dinero.aTexto(monto) +
                 ", socio=" + (socio != null ? socio.getNombre() : "N/A") +
                 ", empleado=" + (empleado != null ? empleado.getNombre() : "N/A") +
                 ", clase=" + (clase != null ? clase.getNombre() : "N/A") +
@@ -43,16 +65,16 @@ public class Registro {
     }
 
     // guardarEnArchivo eliminado: La persistencia ahora es manejada
-    // centralizadamente por Gimnasio.guardarEstadoCompleto()
+    // centralizadamente por Gimnasio (registrarMovimiento / guardarEstadoCompleto)
 
     public String toCSV() {
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
         StringBuilder sb = new StringBuilder();
         sb.append(idRegistro).append("|");
         sb.append(sdf.format(fecha)).append("|");
         sb.append(tipo).append("|");
         sb.append(descripcion).append("|");
-        sb.append(monto).append("|");
+        sb.append(Dinero.aTexto(monto)).append("|");
 
         // Serializar entidades si existen
         if (socio != null) {
@@ -69,7 +91,7 @@ public class Registro {
             sb.append("EMPLEADO;").append(empleado.getClass().getSimpleName()).append(";")
                     .append(empleado.getDni()).append(";").append(empleado.getNombre()).append(";")
                     .append(empleado.getApellido())
-                    .append(";").append(empleado.getSexo()).append(";").append(empleado.getSueldo());
+                    .append(";").append(empleado.getSexo()).append(";").append(Dinero.aTexto(empleado.getSueldo()));
             if (empleado instanceof Entrenador) {
                 sb.append(";").append(((Entrenador) empleado).getEspecialidad());
             } else if (empleado instanceof Limpieza) {
@@ -91,10 +113,19 @@ public class Registro {
         return sb.toString();
     }
 
+    public int getIdRegistro() {
+        return idRegistro;
+    }
+
     public Date getFecha() {
         return fecha;
     }
 
+    /** Año y mes de la fecha según periodo(anio, mes), o -1 si no tiene fecha. */
+    public int getPeriodo() {
+        return periodo;
+    }
+
     public String getTipo() {
         return tipo;
     }
@@ -103,7 +134,8 @@ public class Registro {
         return descripcion;
     }
 
-    public double getMonto() {
+    /** Monto en centavos. */
+    public long getMonto() {
         return monto;
     }
 
@@ -19,7 +19,15 @@ public class Socio {
     private CuentaBancaria cuenta;
     private Date fechaInscripcion;
     private Date fechaVencimientoPlan;
+    // el mismo vencimiento en milisegundos, para consultarlo sin crear fechas
+    private volatile long vencimientoMilis;
+    // índice de vencimientos del gimnasio en el que está el socio, y su clave ahí
+    private IndiceVencimientos indiceVencimientos;
+    private IndiceVencimientos.Clave claveVencimiento;
     private boolean activo;
+    // true desde que se lo elimina del gimnasio: ya no se lo puede inscribir en
+    // clases (lo protege el monitor del socio, igual que clasesInscriptas)
+    private boolean dadoDeBaja;
     private String plan;
     private int planMeses; // duración en meses: 1,3,6,12
 
@@ -40,12 +48,13 @@ public class Socio {
         this.clasesInscriptas = clasesInscriptas != null ? clasesInscriptas : new ArrayList<>();
         this.fechaInscripcion = fechaInscripcion != null ? fechaInscripcion : new Date();
         this.fechaVencimientoPlan = fechaVencimientoPlan != null ? fechaVencimientoPlan : this.fechaInscripcion;
+        this.vencimientoMilis = milis(this.fechaVencimientoPlan);
         this.activo = activo;
         this.plan = plan != null ? plan : "";
         this.planMeses = planMeses;
     }
 
-    public boolean pagarCuota(double monto, CuentaBancaria cuentaGimnasio) {
+    public boolean pagarCuota(long monto, CuentaBancaria cuentaGimnasio) {
         if (cuenta == null || cuentaGimnasio == null || monto <= 0) {
             return false;
         }
@@ -61,7 +70,7 @@ public class Socio {
             cal.setTime(base);
             if (planMeses > 0)
                 cal.add(Calendar.MONTH, planMeses);
-            fechaVencimientoPlan = cal.getTime();
+            cambiarVencimiento(cal.getTime());
             this.activo = true;
             return true;
         }
@@ -69,20 +78,40 @@ public class Socio {
     }
 
     public void agregarAlGimnasio(Gimnasio g) {
-        if (g != null && !g.sociosPorDni.containsKey(this.getDni())) {
-            g.socios.add(this);
-            g.sociosPorDni.put(this.getDni(), this);
-            // No creamos registro de evento para persistencia, solo para historial si se
-            // desea
-            // Pero la persistencia ahora es por estado
-            g.guardarSocios();
+        if (g == null) {
+            return;
+        }
+        synchronized (g.candadoSocio(this.getDni())) {
+            if (g.sociosPorDni.ponerSiAusente(this.getDni(), this) == null) {
+                synchronized (this) {
+                    dadoDeBaja = false;
+                }
+                g.indiceVencimientos.agregar(this);
+                g.socios.add(this);
+                // No creamos registro de evento para persistencia, solo para historial si se
+                // desea
+                // Pero la persistencia ahora es por estado
+                g.registrarModificacionSocio(this);
+            }
         }
     }
 
     public void eliminarDelGimnasio(Gimnasio g) {
-        if (g != null && g.socios.remove(this)) {
-            g.sociosPorDni.remove(this.getDni());
-            g.guardarSocios();
+        if (g == null) {
+            return;
+        }
+        synchronized (g.candadoSocio(this.getDni())) {
+            if (g.sociosPorDni.quitar(this.getDni(), this)) {
+                g.indiceVencimientos.quitar(this);
+                g.socios.remove(this);
+                g.registrarBajaSocio(this);
+                // Libera sus lugares en las clases (los ocupa la lista de espera).
+                // Una clase que lo promueva de la lista de espera después de esto
+                // lo rechaza (ver agregarClaseInscripta)
+                for (Clase c : darDeBajaDeClases()) {
+                    c.cancelarInscripcion(this, g);
+                }
+            }
         }
     }
 
@@ -125,23 +154,61 @@ public class Socio {
                 // If parsing fails, dates remain null
             }
 
-            // If dates are null, set defaults
-            if (fechaInsc == null) {
-                fechaInsc = new Date();
+            return crearDesdeArchivo(dni, nombre, apellido, membresia, planMeses, cb, fechaInsc, fechaVenc);
+        }
+        return null;
+    }
+
+    /**
+     * Crea un socio a partir de la línea actual del lector, con el mismo formato
+     * que fromCSV pero decodificando números y fechas directamente del archivo.
+     */
+    public static Socio fromLector(LectorDelimitado lector) {
+        if (lector.cantidadCampos() < 6) {
+            return null;
+        }
+        int dni = lector.campoEntero(0);
+        String nombre = lector.campoTexto(1);
+        String apellido = lector.campoTexto(2);
+        String membresia = lector.campoTexto(3);
+        int planMeses = lector.campoEntero(4);
+
+        CuentaBancaria cb = null;
+        if (!lector.campoEs(5, "null")) {
+            cb = new CuentaBancaria(lector.campoTexto(5), 0, nombre + " " + apellido);
+        }
+
+        Date fechaInsc = null;
+        Date fechaVenc = null;
+        try {
+            if (lector.cantidadCampos() >= 7 && !lector.campoEs(6, "null")) {
+                fechaInsc = new Date(lector.campoFecha(6));
             }
-            if (fechaVenc == null) {
-                // Calculate expiration based on plan
-                Calendar cal = Calendar.getInstance();
-                cal.setTime(fechaInsc);
-                cal.add(Calendar.MONTH, planMeses);
-                fechaVenc = cal.getTime();
+            if (lector.cantidadCampos() >= 8 && !lector.campoEs(7, "null")) {
+                fechaVenc = new Date(lector.campoFecha(7));
             }
+        } catch (IllegalArgumentException e) {
+            // Igual que en fromCSV: si no se puede leer, se usan los valores por defecto
+        }
+        return crearDesdeArchivo(dni, nombre, apellido, membresia, planMeses, cb, fechaInsc, fechaVenc);
+    }
 
-            Socio s = new Socio(nombre, apellido, dni, membresia, null, cb, fechaInsc, fechaVenc, false,
-                    planMeses + " meses", planMeses);
-            return s;
+    private static Socio crearDesdeArchivo(int dni, String nombre, String apellido, String membresia,
+            int planMeses, CuentaBancaria cb, Date fechaInsc, Date fechaVenc) {
+        // If dates are null, set defaults
+        if (fechaInsc == null) {
+            fechaInsc = new Date();
         }
-        return null;
+        if (fechaVenc == null) {
+            // Calculate expiration based on plan
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(fechaInsc);
+            cal.add(Calendar.MONTH, planMeses);
+            fechaVenc = cal.getTime();
+        }
+
+        return new Socio(nombre, apellido, dni, membresia, null, cb, fechaInsc, fechaVenc, false,
+                planMeses + " meses", planMeses);
     }
 
     @Override
@@ -157,6 +224,33 @@ public class Socio {
 
     // Getters y setters
 
+    /** Copia de las clases en las que está inscripto. */
+    public synchronized List<Clase> getClasesInscriptas() {
+        return new ArrayList<>(clasesInscriptas);
+    }
+
+    /** Marca al socio como dado de baja y retorna las clases en las que estaba inscripto. */
+    private synchronized List<Clase> darDeBajaDeClases() {
+        dadoDeBaja = true;
+        return new ArrayList<>(clasesInscriptas);
+    }
+
+    // Los llama Clase al confirmar o cancelar una inscripción. Retorna false (y
+    // no agrega la clase) si el socio ya fue eliminado del gimnasio
+    synchronized boolean agregarClaseInscripta(Clase c) {
+        if (dadoDeBaja) {
+            return false;
+        }
+        if (!clasesInscriptas.contains(c)) {
+            clasesInscriptas.add(c);
+        }
+        return true;
+    }
+
+    synchronized void quitarClaseInscripta(Clase c) {
+        clasesInscriptas.remove(c);
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -210,7 +304,35 @@ public class Socio {
     }
 
     public void setFechaVencimientoPlan(Date fechaVencimientoPlan) {
-        this.fechaVencimientoPlan = fechaVencimientoPlan;
+        cambiarVencimiento(fechaVencimientoPlan);
+    }
+
+    /** Vencimiento del plan en milisegundos (Long.MIN_VALUE si no tiene). */
+    public long getVencimientoMilis() {
+        return vencimientoMilis;
+    }
+
+    private static long milis(Date fecha) {
+        return (fecha != null) ? fecha.getTime() : Long.MIN_VALUE;
+    }
+
+    /** Cambia el vencimiento y reubica al socio en el índice de vencimientos. */
+    private synchronized void cambiarVencimiento(Date fecha) {
+        this.fechaVencimientoPlan = fecha;
+        this.vencimientoMilis = milis(fecha);
+        if (indiceVencimientos != null) {
+            indiceVencimientos.actualizar(this);
+        }
+    }
+
+    // Usados solo por IndiceVencimientos
+    synchronized void indexarVencimiento(IndiceVencimientos indice, IndiceVencimientos.Clave clave) {
+        this.indiceVencimientos = indice;
+        this.claveVencimiento = clave;
+    }
+
+    synchronized IndiceVencimientos.Clave getClaveVencimiento() {
+        return claveVencimiento;
     }
 
     public String getPlan() {
@@ -234,12 +356,12 @@ public class Socio {
      * Actualiza el atributo 'activo' según la fecha de vencimiento del plan.
      */
     public boolean isActivo() {
-        if (fechaVencimientoPlan == null) {
-            this.activo = false;
-            return false;
-        }
-        Date ahora = new Date();
-        boolean ahoraActivo = !ahora.after(fechaVencimientoPlan); // ahora <= vencimiento
+        return isActivo(System.currentTimeMillis());
+    }
+
+    /** Igual que isActivo() pero a un instante dado, para evaluar muchos socios con la misma hora. */
+    public boolean isActivo(long ahora) {
+        boolean ahoraActivo = ahora <= vencimientoMilis; // sin vencimiento -> Long.MIN_VALUE
         this.activo = ahoraActivo;
         return ahoraActivo;
     }
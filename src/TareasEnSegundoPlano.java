@@ -0,0 +1,151 @@
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta fuera del hilo de Swing las operaciones del modelo que dispara la
+ * interfaz (altas, bajas, modificaciones, pagos, importaciones, consultas
+ * pesadas), para que la ventana no se congele mientras se escribe a disco.
+ *
+ * Las tareas corren de a una en un hilo propio, en el orden en que se
+ * pidieron: así dos acciones seguidas del usuario (agregar un socio y luego
+ * pagarle la cuota) se aplican en ese orden. Cada tarea es un SwingWorker, de
+ * modo que el aviso de resultado o de error corre en el hilo de Swing.
+ *
+ * Mientras haya tareas pendientes se avisa al Indicador (por ejemplo para
+ * mostrar "Procesando..." y el cursor de espera). Los métodos deben llamarse
+ * desde el hilo de Swing, salvo detener(), que se usa al cerrar el sistema.
+ */
+public class TareasEnSegundoPlano {
+
+    /** Recibe, en el hilo de Swing, la cantidad de tareas pendientes y la que está en curso. */
+    public interface Indicador {
+        void actualizar(int pendientes, String descripcion);
+    }
+
+    private final ExecutorService hilo = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "tareas-gimnasio");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Indicador indicador;
+    // solo se usa en el hilo de Swing
+    private int pendientes;
+
+    public TareasEnSegundoPlano(Indicador indicador) {
+        this.indicador = indicador;
+    }
+
+    /** Ejecuta la tarea y luego alTerminar (en el hilo de Swing). */
+    public void ejecutar(String descripcion, Runnable tarea, Runnable alTerminar) {
+        ejecutar(descripcion, () -> {
+            tarea.run();
+            return null;
+        }, r -> {
+            if (alTerminar != null) {
+                alTerminar.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la tarea y le pasa su resultado a alTerminar (en el hilo de
+     * Swing). Si la tarea lanza una excepción se muestra un mensaje de error.
+     */
+    public <R> void ejecutar(String descripcion, Callable<R> tarea, Consumer<R> alTerminar) {
+        ejecutar(descripcion, tarea, alTerminar, e -> JOptionPane.showMessageDialog(null,
+                "Error: " + (e.getMessage() != null ? e.getMessage() : e.toString()), descripcion,
+                JOptionPane.ERROR_MESSAGE));
+    }
+
+    /** Igual que ejecutar(descripcion, tarea, alTerminar), con un manejo de error propio. */
+    public <R> void ejecutar(String descripcion, Callable<R> tarea, Consumer<R> alTerminar,
+            Consumer<Exception> alFallar) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> ejecutar(descripcion, tarea, alTerminar, alFallar));
+            return;
+        }
+        pendientes++;
+        avisar(descripcion);
+        SwingWorker<R, Void> worker = new SwingWorker<R, Void>() {
+            @Override
+            protected R doInBackground() throws Exception {
+                EventosGimnasio.Tarea evento = new EventosGimnasio.Tarea();
+                evento.begin();
+                boolean exitosa = false;
+                try {
+                    R resultado = tarea.call();
+                    exitosa = true;
+                    return resultado;
+                } finally {
+                    evento.terminar(descripcion, exitosa);
+                }
+            }
+
+            @Override
+            protected void done() {
+                pendientes--;
+                avisar(null);
+                R resultado;
+                try {
+                    resultado = get();
+                } catch (ExecutionException e) {
+                    Throwable causa = e.getCause();
+                    System.err.println("Error en \"" + descripcion + "\": " + causa);
+                    if (alFallar != null) {
+                        alFallar.accept(causa instanceof Exception ? (Exception) causa : e);
+                    }
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (alTerminar != null) {
+                    alTerminar.accept(resultado);
+                }
+            }
+        };
+        try {
+            hilo.execute(worker);
+        } catch (RejectedExecutionException e) {
+            // El sistema se está cerrando (ver detener()); la tarea no se ejecuta
+            pendientes--;
+            avisar(null);
+            System.err.println("No se ejecutó \"" + descripcion + "\": el sistema se está cerrando");
+        }
+    }
+
+    /**
+     * Deja de aceptar tareas y espera a que terminen las encoladas y la que
+     * está en curso, hasta esperaMs milisegundos. Retorna true si terminaron
+     * todas. Se llama antes de guardar el estado al cerrar, para no tomar la
+     * instantánea mientras una tarea todavía modifica el modelo.
+     */
+    public boolean detener(long esperaMs) {
+        hilo.shutdown();
+        try {
+            return hilo.awaitTermination(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void avisar(String descripcion) {
+        if (indicador != null) {
+            indicador.actualizar(pendientes, descripcion);
+        }
+    }
+
+    /** Cantidad de tareas encoladas o en curso. */
+    public int getPendientes() {
+        return pendientes;
+    }
+}